@@ -9,9 +9,4 @@ public class HospitalComparisonApplication {
     public static void main(String[] args) {
         SpringApplication.run(HospitalComparisonApplication.class, args);
     }
-
-    @org.springframework.context.annotation.Bean
-    public org.springframework.web.client.RestTemplate restTemplate() {
-        return new org.springframework.web.client.RestTemplate();
-    }
 }
@@ -25,7 +25,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
                 .allowCredentials(true)
-                .exposedHeaders("Content-Type", "Authorization")
+                .exposedHeaders("Content-Type", "Authorization", "X-Next-Cursor", "Idempotent-Replayed")
                 .maxAge(3600);
     }
 
@@ -51,7 +51,7 @@ public class CorsConfig implements WebMvcConfigurer {
         configuration.setAllowCredentials(true);
         
         // Expose specific headers
-        configuration.setExposedHeaders(Arrays.asList("Content-Type", "Authorization"));
+        configuration.setExposedHeaders(Arrays.asList("Content-Type", "Authorization", "X-Next-Cursor", "Idempotent-Replayed"));
         
         // Set max age
         configuration.setMaxAge(3600L);
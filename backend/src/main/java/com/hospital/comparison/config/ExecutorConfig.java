@@ -0,0 +1,50 @@
+package com.hospital.comparison.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bounded thread pools for blocking outbound work. Pools never grow past their
+ * maximum and reject work when their queue is full, so callers fail fast
+ * instead of queueing without limit.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(name = "geocodingExecutor")
+    public ThreadPoolTaskExecutor geocodingExecutor(
+            @Value("${geocoding.executor.threads:8}") int threads,
+            @Value("${geocoding.executor.queue-capacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("geocoding-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Stages of a single search that run side by side (remote geocoding, database
+     * prefetch). Kept apart from the geocoding pool because the area geocoding
+     * stage itself fans out onto that pool.
+     */
+    @Bean(name = "searchExecutor")
+    public ThreadPoolTaskExecutor searchExecutor(
+            @Value("${search.executor.threads:16}") int threads,
+            @Value("${search.executor.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,33 @@
+package com.hospital.comparison.config;
+
+import com.hospital.comparison.service.QueryPlanRecorder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes database access through a {@link QueryPlanRecorder} for the EXPLAIN
+ * check of repository queries (explain-check profile only)
+ */
+@Configuration
+@Profile("explain-check")
+public class ExplainCheckConfig {
+
+    @Bean
+    public static QueryPlanRecorder queryPlanRecorder() {
+        return new QueryPlanRecorder();
+    }
+
+    @Bean
+    public static BeanPostProcessor queryPlanDataSourcePostProcessor(QueryPlanRecorder recorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource ? recorder.wrap((DataSource) bean) : bean;
+            }
+        };
+    }
+}
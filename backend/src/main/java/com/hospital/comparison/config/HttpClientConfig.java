@@ -0,0 +1,93 @@
+package com.hospital.comparison.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Outbound HTTP client used for geocoding.
+ *
+ * Connections are pooled and kept alive between calls to the same host, and
+ * every call is bounded by a connect, pool-lease and response timeout so a slow
+ * upstream cannot hold a request thread indefinitely. The RestTemplate is built
+ * through RestTemplateBuilder so request latency is recorded as
+ * http.client.requests; pool usage is published as http.client.pool.*.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${http.client.max-connections:20}")
+    private int maxConnections;
+
+    @Value("${http.client.max-connections-per-route:10}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${http.client.connect-timeout-ms:2000}")
+    private long connectTimeoutMillis;
+
+    @Value("${http.client.response-timeout-ms:3000}")
+    private long responseTimeoutMillis;
+
+    @Value("${http.client.pool-timeout-ms:1000}")
+    private long poolTimeoutMillis;
+
+    @Value("${http.client.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Bean
+    public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                        .setSocketTimeout(Timeout.ofMilliseconds(responseTimeoutMillis))
+                        .build())
+                .build();
+
+        Gauge.builder("http.client.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .register(meterRegistry);
+        Gauge.builder("http.client.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+                .register(meterRegistry);
+        Gauge.builder("http.client.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+                .register(meterRegistry);
+        Gauge.builder("http.client.pool.max", connectionManager, cm -> cm.getTotalStats().getMax())
+                .register(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMillis))
+                .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMillis))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+}
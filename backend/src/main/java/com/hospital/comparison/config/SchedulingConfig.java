@@ -0,0 +1,15 @@
+package com.hospital.comparison.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs (geocode pre-warming, rating stats
+ * repair). They run on Spring Boot's scheduler, sized by
+ * spring.task.scheduling.pool.size so a long pre-warm pass does not hold back
+ * the other jobs.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
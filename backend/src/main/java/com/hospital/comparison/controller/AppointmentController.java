@@ -1,14 +1,24 @@
 package com.hospital.comparison.controller;
 
+import com.hospital.comparison.dto.AppointmentPageDTO;
 import com.hospital.comparison.dto.AppointmentRequestDTO;
 import com.hospital.comparison.dto.AppointmentResponseDTO;
+import com.hospital.comparison.dto.BulkImportResultDTO;
+import com.hospital.comparison.service.AppointmentBulkImportService;
 import com.hospital.comparison.service.AppointmentService;
+import com.hospital.comparison.service.IdempotencyKeyStore;
+import com.hospital.comparison.service.SlotInventoryService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,14 +30,35 @@ public class AppointmentController {
     @Autowired
     private AppointmentService appointmentService;
 
+    @Autowired
+    private SlotInventoryService slotInventoryService;
+
+    @Autowired
+    private IdempotencyKeyStore idempotencyKeyStore;
+
+    @Autowired
+    private AppointmentBulkImportService bulkImportService;
+
     /**
      * Book an appointment
      * POST /api/appointments
+     * With an Idempotency-Key header, retries of the same request return the original
+     * booking (Idempotent-Replayed: true) instead of booking again.
      */
     @PostMapping
-    public ResponseEntity<?> bookAppointment(@Valid @RequestBody AppointmentRequestDTO request) {
+    public ResponseEntity<?> bookAppointment(@Valid @RequestBody AppointmentRequestDTO request,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            AppointmentResponseDTO appointment = appointmentService.bookAppointment(request);
+            AppointmentResponseDTO appointment;
+            boolean replayed = false;
+            if (idempotencyKey != null) {
+                IdempotencyKeyStore.Result<AppointmentResponseDTO> result = idempotencyKeyStore.execute(
+                        "appointments", idempotencyKey, request, () -> appointmentService.bookAppointment(request));
+                appointment = result.getValue();
+                replayed = result.isReplayed();
+            } else {
+                appointment = appointmentService.bookAppointment(request);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -35,7 +66,9 @@ public class AppointmentController {
             response.put("appointmentId", appointment.getId());
             response.put("appointment", appointment);
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header("Idempotent-Replayed", Boolean.toString(replayed))
+                    .body(response);
         } catch (IllegalArgumentException e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
@@ -44,6 +77,35 @@ public class AppointmentController {
         }
     }
 
+    /**
+     * Book many appointments from a CSV body, streamed and written in JDBC batches
+     * POST /api/appointments/bulk (Content-Type: text/csv)
+     */
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<?> bulkImport(InputStream body) {
+        // Always 200: rows are booked batch by batch, rejected rows are listed in the result
+        BulkImportResultDTO result = bulkImportService.importAppointments(
+                new InputStreamReader(body, StandardCharsets.UTF_8));
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Remaining capacity of a hospital service on a day
+     * GET /api/appointments/slots?hospitalId=1&serviceId=1&date=2026-02-15
+     */
+    @GetMapping("/slots")
+    public ResponseEntity<Map<String, Object>> getSlotAvailability(
+            @RequestParam("hospitalId") Long hospitalId,
+            @RequestParam("serviceId") Long serviceId,
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            return ResponseEntity.ok(slotInventoryService.getAvailability(hospitalId, serviceId, date));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Get appointment by ID
      * GET /api/appointments/{id}
@@ -62,35 +124,82 @@ public class AppointmentController {
     }
 
     /**
-     * Get appointments by hospital
-     * GET /api/appointments/hospital/{hospitalId}
+     * Cancel an appointment; its place in the day's slot becomes free again
+     * PUT /api/appointments/{id}/cancel
+     */
+    @PutMapping("/{id}/cancel")
+    public ResponseEntity<?> cancelAppointment(@PathVariable("id") Long id) {
+        try {
+            AppointmentResponseDTO appointment = appointmentService.cancelAppointment(id);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Appointment cancelled");
+            response.put("appointment", appointment);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+    }
+
+    /**
+     * Get appointments by hospital, newest first, one page at a time
+     * GET /api/appointments/hospital/{hospitalId}?limit=50&after={X-Next-Cursor of the previous page}
      */
     @GetMapping("/hospital/{hospitalId}")
     public ResponseEntity<List<AppointmentResponseDTO>> getAppointmentsByHospital(
-            @PathVariable("hospitalId") Long hospitalId) {
-        return ResponseEntity.ok(appointmentService.getAppointmentsByHospital(hospitalId));
+            @PathVariable("hospitalId") Long hospitalId,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
+        try {
+            return pageResponse(appointmentService.getAppointmentsByHospital(hospitalId, limit, after));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
-     * Get appointments by patient phone
-     * GET /api/appointments/patient/{phone}
+     * Get appointments by patient phone, newest first, one page at a time
+     * GET /api/appointments/patient/{phone}?limit=50&after=...
      */
     @GetMapping("/patient/{phone}")
-    public ResponseEntity<List<AppointmentResponseDTO>> getAppointmentsByPhone(@PathVariable("phone") String phone) {
-        return ResponseEntity.ok(appointmentService.getAppointmentsByPhone(phone));
+    public ResponseEntity<List<AppointmentResponseDTO>> getAppointmentsByPhone(
+            @PathVariable("phone") String phone,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
+        try {
+            return pageResponse(appointmentService.getAppointmentsByPhone(phone, limit, after));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
-     * Get appointments by user ID
-     * GET /api/appointments/user/{userId}
+     * Get appointments by user ID, newest first, one page at a time
+     * GET /api/appointments/user/{userId}?limit=50&after=...
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<AppointmentResponseDTO>> getAppointmentsByUserId(@PathVariable("userId") Long userId) {
+    public ResponseEntity<List<AppointmentResponseDTO>> getAppointmentsByUserId(
+            @PathVariable("userId") Long userId,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
         try {
-            return ResponseEntity.ok(appointmentService.getAppointmentsByUserId(userId));
+            return pageResponse(appointmentService.getAppointmentsByUserId(userId, limit, after));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    private ResponseEntity<List<AppointmentResponseDTO>> pageResponse(AppointmentPageDTO page) {
+        if (page.getNextCursor() != null) {
+            // The body stays a plain list; the next page is announced in a header
+            return ResponseEntity.ok().header("X-Next-Cursor", page.getNextCursor()).body(page.getAppointments());
+        }
+        return ResponseEntity.ok(page.getAppointments());
+    }
 }
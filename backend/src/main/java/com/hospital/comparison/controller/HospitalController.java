@@ -1,6 +1,7 @@
 package com.hospital.comparison.controller;
 
 import com.hospital.comparison.dto.HospitalSearchDTO;
+import com.hospital.comparison.dto.HospitalSearchPageDTO;
 import com.hospital.comparison.service.HospitalSearchService;
 import com.hospital.comparison.service.GeocodingService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,7 +41,10 @@ public class HospitalController {
             @RequestParam(name = "longitude", required = false) Double longitude,
             @RequestParam("city") String city,
             @RequestParam(name = "area", required = false) String area,
-            @RequestParam(name = "radius", required = false, defaultValue = "10") Double radius) {
+            @RequestParam(name = "radius", required = false, defaultValue = "10") Double radius,
+            @RequestParam(name = "noCache", required = false, defaultValue = "false") boolean noCache,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor) {
         try {
             System.out.println("=== SEARCH REQUEST DEBUG ===");
             System.out.println("serviceId: " + serviceId);
@@ -50,10 +54,13 @@ public class HospitalController {
             System.out.println("longitude: " + longitude);
             System.out.println("radius: " + radius + " (TYPE: " + (radius != null ? radius.getClass().getSimpleName() : "NULL") + ")");
             System.out.println("radiusKm parameter value: " + radius);
+            System.out.println("noCache: " + noCache);
+            System.out.println("limit: " + limit + ", cursor: " + cursor);
             System.out.println("==========================");
             
-            List<HospitalSearchDTO> results = hospitalSearchService.searchHospitals(
-                    serviceId, latitude, longitude, city, area, radius);
+            HospitalSearchPageDTO page = hospitalSearchService.searchHospitalsPage(
+                    serviceId, latitude, longitude, city, area, radius, !noCache, limit, cursor);
+            List<HospitalSearchDTO> results = page.getResults();
             
             System.out.println("Search completed. Found " + results.size() + " hospitals");
             if (!results.isEmpty()) {
@@ -61,6 +68,10 @@ public class HospitalController {
                 results.stream().limit(3).forEach(h -> 
                     System.out.println("  - " + h.getName() + ": " + h.getDistance() + "km"));
             }
+            if (page.getNextCursor() != null) {
+                // The body stays a plain list; the next page is announced in a header
+                return ResponseEntity.ok().header("X-Next-Cursor", page.getNextCursor()).body(results);
+            }
             return ResponseEntity.ok(results);
         } catch (Exception e) {
             System.err.println("Hospital search error: " + e.getMessage());
@@ -69,6 +80,24 @@ public class HospitalController {
         }
     }
 
+    @GetMapping("/nearest")
+    public ResponseEntity<List<HospitalSearchDTO>> findNearestHospitals(
+            @RequestParam("serviceId") Long serviceId,
+            @RequestParam("lat") Double latitude,
+            @RequestParam("lon") Double longitude,
+            @RequestParam(name = "k", required = false, defaultValue = "10") int k) {
+        try {
+            List<HospitalSearchDTO> results = hospitalSearchService.findNearestHospitals(
+                    serviceId, latitude, longitude, k);
+            System.out.println("Nearest search completed. Found " + results.size() + " hospitals");
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            System.err.println("Nearest hospital search error: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/compare")
     public ResponseEntity<List<HospitalSearchDTO>> compareHospitals(
             @RequestParam("serviceId") Long serviceId,
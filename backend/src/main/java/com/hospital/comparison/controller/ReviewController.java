@@ -3,9 +3,11 @@ package com.hospital.comparison.controller;
 import com.hospital.comparison.dto.ReviewDTO;
 import com.hospital.comparison.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,6 +19,28 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService;
 
+    /**
+     * Add a review for a hospital
+     * POST /api/reviews
+     */
+    @PostMapping
+    public ResponseEntity<?> addReview(@RequestBody ReviewDTO request) {
+        try {
+            ReviewDTO review = reviewService.addReview(request);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Review added successfully");
+            response.put("review", review);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
     /**
      * Get all reviews for a hospital
      * GET /api/reviews/hospital/{hospitalId}
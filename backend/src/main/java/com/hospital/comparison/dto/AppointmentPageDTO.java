@@ -0,0 +1,15 @@
+package com.hospital.comparison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentPageDTO {
+    private List<AppointmentResponseDTO> appointments;
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,28 @@
+package com.hospital.comparison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResultDTO {
+    private int accepted;
+    private int rejected;
+    private long durationMs;
+
+    // Rejected rows by input line number, capped at appointments.bulk.max-reported-errors
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int line;
+        private String message;
+    }
+}
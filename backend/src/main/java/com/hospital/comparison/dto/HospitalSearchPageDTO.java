@@ -0,0 +1,21 @@
+package com.hospital.comparison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HospitalSearchPageDTO {
+    private List<HospitalSearchDTO> results;
+    private String nextCursor; // null on the last page
+    private boolean degraded;  // city-only fallback after the reference point could not be found
+
+    public HospitalSearchPageDTO(List<HospitalSearchDTO> results, String nextCursor) {
+        this.results = results;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,32 @@
+package com.hospital.comparison.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Booking capacity of one hospital service on one day. booked only moves through
+ * the conditional updates in AppointmentSlotRepository, which never let it pass
+ * capacity; version increases with every change.
+ */
+@Entity
+@Table(name = "appointment_slot")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSlot {
+
+    @EmbeddedId
+    private AppointmentSlotId id;
+
+    @Column(nullable = false)
+    private Integer capacity;
+
+    @Column(nullable = false)
+    private Integer booked;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+}
@@ -0,0 +1,28 @@
+package com.hospital.comparison.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSlotId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "hospital_id")
+    private Long hospitalId;
+
+    @Column(name = "service_id")
+    private Long serviceId;
+
+    @Column(name = "slot_date")
+    private LocalDate slotDate;
+}
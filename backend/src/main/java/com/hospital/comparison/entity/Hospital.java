@@ -1,5 +1,6 @@
 package com.hospital.comparison.entity;
 
+import com.hospital.comparison.event.HospitalEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,6 +10,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "hospital")
+@EntityListeners(HospitalEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
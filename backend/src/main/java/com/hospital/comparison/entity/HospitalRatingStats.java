@@ -0,0 +1,47 @@
+package com.hospital.comparison.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Denormalized review aggregates per hospital, maintained on every review insert
+ * so rating lookups never have to scan the review table.
+ */
+@Entity
+@Table(name = "hospital_rating_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HospitalRatingStats {
+
+    @Id
+    @Column(name = "hospital_id")
+    private Long hospitalId;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
+    @Column(name = "review_count", nullable = false)
+    private Long reviewCount;
+
+    @Column(name = "star_1", nullable = false)
+    private Long star1;
+
+    @Column(name = "star_2", nullable = false)
+    private Long star2;
+
+    @Column(name = "star_3", nullable = false)
+    private Long star3;
+
+    @Column(name = "star_4", nullable = false)
+    private Long star4;
+
+    @Column(name = "star_5", nullable = false)
+    private Long star5;
+
+    public double getAverageRating() {
+        return reviewCount != null && reviewCount > 0 ? (double) ratingSum / reviewCount : 0.0;
+    }
+}
@@ -1,5 +1,6 @@
 package com.hospital.comparison.entity;
 
+import com.hospital.comparison.event.HospitalServiceEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "hospital_service")
+@EntityListeners(HospitalServiceEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
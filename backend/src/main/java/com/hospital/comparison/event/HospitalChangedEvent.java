@@ -0,0 +1,17 @@
+package com.hospital.comparison.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published whenever a hospital row is inserted, updated or deleted through JPA
+ */
+@Data
+@AllArgsConstructor
+public class HospitalChangedEvent {
+    private Long hospitalId;
+    private Double latitude;
+    private Double longitude;
+    private String city;
+    private boolean removed;
+}
@@ -0,0 +1,33 @@
+package com.hospital.comparison.event;
+
+import com.hospital.comparison.entity.Hospital;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns JPA lifecycle callbacks on {@link Hospital} into application events so
+ * in-memory structures (spatial index, caches) can follow database writes.
+ */
+@Component
+public class HospitalEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Hospital hospital) {
+        eventPublisher.publishEvent(new HospitalChangedEvent(hospital.getId(), hospital.getLatitude(),
+                hospital.getLongitude(), hospital.getCity(), false));
+    }
+
+    @PostRemove
+    public void onRemoved(Hospital hospital) {
+        eventPublisher.publishEvent(new HospitalChangedEvent(hospital.getId(), hospital.getLatitude(),
+                hospital.getLongitude(), hospital.getCity(), true));
+    }
+}
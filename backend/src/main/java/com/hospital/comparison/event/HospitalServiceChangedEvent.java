@@ -0,0 +1,18 @@
+package com.hospital.comparison.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published whenever a hospital_service row (price, availability, waiting time)
+ * is inserted, updated or deleted through JPA
+ */
+@Data
+@AllArgsConstructor
+public class HospitalServiceChangedEvent {
+    private Long hospitalServiceId;
+    private Long hospitalId;
+    private Long serviceId;
+    private boolean added;
+    private boolean removed;
+}
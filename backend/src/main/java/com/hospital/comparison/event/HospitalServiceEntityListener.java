@@ -0,0 +1,41 @@
+package com.hospital.comparison.event;
+
+import com.hospital.comparison.entity.HospitalService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns JPA lifecycle callbacks on {@link HospitalService} into application events
+ */
+@Component
+public class HospitalServiceEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onAdded(HospitalService hospitalService) {
+        publish(hospitalService, true, false);
+    }
+
+    @PostUpdate
+    public void onUpdated(HospitalService hospitalService) {
+        publish(hospitalService, false, false);
+    }
+
+    @PostRemove
+    public void onRemoved(HospitalService hospitalService) {
+        publish(hospitalService, false, true);
+    }
+
+    private void publish(HospitalService hospitalService, boolean added, boolean removed) {
+        Long hospitalId = hospitalService.getHospital() != null ? hospitalService.getHospital().getId() : null;
+        Long serviceId = hospitalService.getService() != null ? hospitalService.getService().getId() : null;
+        eventPublisher.publishEvent(new HospitalServiceChangedEvent(hospitalService.getId(), hospitalId,
+                serviceId, added, removed));
+    }
+}
@@ -0,0 +1,15 @@
+package com.hospital.comparison.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by ReviewService after a review is stored and the hospital's rating stats are updated,
+ * and by RatingStatsRebuildJob (with a null rating) after it corrected a hospital's stats
+ */
+@Data
+@AllArgsConstructor
+public class ReviewAddedEvent {
+    private Long hospitalId;
+    private Integer rating;
+}
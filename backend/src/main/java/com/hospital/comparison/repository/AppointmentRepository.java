@@ -1,6 +1,8 @@
 package com.hospital.comparison.repository;
 
+import com.hospital.comparison.dto.AppointmentResponseDTO;
 import com.hospital.comparison.entity.Appointment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,20 +14,54 @@ import java.util.List;
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
-        @Query("SELECT a FROM Appointment a WHERE a.hospitalId = :hospitalId")
-        List<Appointment> findByHospitalId(@Param("hospitalId") Long hospitalId);
+        // Keyset pages newest first on (appointment_date, id), projected straight into DTOs.
+        // Rows strictly after the (afterDate, afterId) cursor; page holds the row limit.
+        @Query("SELECT new com.hospital.comparison.dto.AppointmentResponseDTO(a.id, a.hospitalId, a.userId, " +
+                        "a.serviceId, a.hospitalName, a.serviceName, a.patientName, a.patientPhone, a.appointmentDate, " +
+                        "a.status) FROM Appointment a " +
+                        "WHERE a.hospitalId = :hospitalId " +
+                        "AND (a.appointmentDate < :afterDate OR (a.appointmentDate = :afterDate AND a.id < :afterId)) " +
+                        "ORDER BY a.appointmentDate DESC, a.id DESC")
+        List<AppointmentResponseDTO> findPageByHospitalId(
+                        @Param("hospitalId") Long hospitalId,
+                        @Param("afterDate") LocalDateTime afterDate,
+                        @Param("afterId") Long afterId,
+                        Pageable page);
+
+        @Query("SELECT new com.hospital.comparison.dto.AppointmentResponseDTO(a.id, a.hospitalId, a.userId, " +
+                        "a.serviceId, a.hospitalName, a.serviceName, a.patientName, a.patientPhone, a.appointmentDate, " +
+                        "a.status) FROM Appointment a " +
+                        "WHERE a.patientPhone = :patientPhone " +
+                        "AND (a.appointmentDate < :afterDate OR (a.appointmentDate = :afterDate AND a.id < :afterId)) " +
+                        "ORDER BY a.appointmentDate DESC, a.id DESC")
+        List<AppointmentResponseDTO> findPageByPatientPhone(
+                        @Param("patientPhone") String patientPhone,
+                        @Param("afterDate") LocalDateTime afterDate,
+                        @Param("afterId") Long afterId,
+                        Pageable page);
+
+        @Query("SELECT new com.hospital.comparison.dto.AppointmentResponseDTO(a.id, a.hospitalId, a.userId, " +
+                        "a.serviceId, a.hospitalName, a.serviceName, a.patientName, a.patientPhone, a.appointmentDate, " +
+                        "a.status) FROM Appointment a " +
+                        "WHERE a.userId = :userId " +
+                        "AND (a.appointmentDate < :afterDate OR (a.appointmentDate = :afterDate AND a.id < :afterId)) " +
+                        "ORDER BY a.appointmentDate DESC, a.id DESC")
+        List<AppointmentResponseDTO> findPageByUserId(
+                        @Param("userId") Long userId,
+                        @Param("afterDate") LocalDateTime afterDate,
+                        @Param("afterId") Long afterId,
+                        Pageable page);
 
         @Query("SELECT a FROM Appointment a WHERE a.status = :status")
         List<Appointment> findByStatus(@Param("status") String status);
 
+        // Active bookings of a service in [dayStart, dayEnd)
         @Query("SELECT COUNT(a) FROM Appointment a WHERE a.hospitalId = :hospitalId " +
-                        "AND a.serviceId = :serviceId AND a.appointmentDate = :date")
+                        "AND a.serviceId = :serviceId AND a.appointmentDate >= :dayStart " +
+                        "AND a.appointmentDate < :dayEnd AND a.status <> 'CANCELLED'")
         Long countByHospitalServiceAndDate(
                         @Param("hospitalId") Long hospitalId,
                         @Param("serviceId") Long serviceId,
-                        @Param("date") LocalDateTime date);
-
-        List<Appointment> findByPatientPhone(String patientPhone);
-
-        List<Appointment> findByUserId(Long userId);
+                        @Param("dayStart") LocalDateTime dayStart,
+                        @Param("dayEnd") LocalDateTime dayEnd);
 }
@@ -0,0 +1,53 @@
+package com.hospital.comparison.repository;
+
+import com.hospital.comparison.entity.AppointmentSlot;
+import com.hospital.comparison.entity.AppointmentSlotId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot, AppointmentSlotId> {
+
+    // Create the slot row on first use, counting the day's existing bookings; no-op when it exists.
+    // There is no portable insert-if-absent that is safe under concurrent first bookings, so
+    // SlotInventoryService picks the MySQL or the PostgreSQL form.
+    String CREATE_SLOT_SELECT = "SELECT :hospitalId, :serviceId, :slotDate, :capacity, COUNT(*), 0 FROM appointment a " +
+            "WHERE a.hospital_id = :hospitalId AND a.service_id = :serviceId " +
+            "AND a.appointment_date >= :dayStart AND a.appointment_date < :dayEnd AND a.status <> 'CANCELLED'";
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO appointment_slot (hospital_id, service_id, slot_date, capacity, booked, version) " +
+            CREATE_SLOT_SELECT, nativeQuery = true)
+    int createIfAbsentMySql(@Param("hospitalId") Long hospitalId, @Param("serviceId") Long serviceId,
+            @Param("slotDate") LocalDate slotDate, @Param("capacity") int capacity,
+            @Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd);
+
+    @Modifying
+    @Query(value = "INSERT INTO appointment_slot (hospital_id, service_id, slot_date, capacity, booked, version) " +
+            CREATE_SLOT_SELECT + " ON CONFLICT (hospital_id, service_id, slot_date) DO NOTHING", nativeQuery = true)
+    int createIfAbsentPostgres(@Param("hospitalId") Long hospitalId, @Param("serviceId") Long serviceId,
+            @Param("slotDate") LocalDate slotDate, @Param("capacity") int capacity,
+            @Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd);
+
+    // Take count places if they are still free; row lock only, 0 rows means the slot is full
+    @Modifying
+    @Query(value = "UPDATE appointment_slot SET booked = booked + :count, version = version + 1 " +
+            "WHERE hospital_id = :hospitalId AND service_id = :serviceId AND slot_date = :slotDate " +
+            "AND booked + :count <= capacity", nativeQuery = true)
+    int reserve(@Param("hospitalId") Long hospitalId, @Param("serviceId") Long serviceId,
+            @Param("slotDate") LocalDate slotDate, @Param("count") int count);
+
+    // Give count places back (cancellation); never below zero
+    @Modifying
+    @Query(value = "UPDATE appointment_slot SET booked = booked - :count, version = version + 1 " +
+            "WHERE hospital_id = :hospitalId AND service_id = :serviceId AND slot_date = :slotDate " +
+            "AND booked >= :count", nativeQuery = true)
+    int release(@Param("hospitalId") Long hospitalId, @Param("serviceId") Long serviceId,
+            @Param("slotDate") LocalDate slotDate, @Param("count") int count);
+}
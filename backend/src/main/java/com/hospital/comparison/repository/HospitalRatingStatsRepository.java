@@ -0,0 +1,82 @@
+package com.hospital.comparison.repository;
+
+import com.hospital.comparison.entity.HospitalRatingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HospitalRatingStatsRepository extends JpaRepository<HospitalRatingStats, Long> {
+
+    String STAR_VALUES = "CASE WHEN :rating = 1 THEN 1 ELSE 0 END, CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "CASE WHEN :rating = 3 THEN 1 ELSE 0 END, CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "CASE WHEN :rating = 5 THEN 1 ELSE 0 END";
+
+    List<HospitalRatingStats> findByHospitalIdIn(List<Long> hospitalIds);
+
+    // Atomic upsert so concurrent review inserts never lose an increment (MySQL)
+    @Modifying
+    @Query(value = "INSERT INTO hospital_rating_stats " +
+            "(hospital_id, rating_sum, review_count, star_1, star_2, star_3, star_4, star_5) " +
+            "VALUES (:hospitalId, :rating, 1, " + STAR_VALUES + ") " +
+            "ON DUPLICATE KEY UPDATE " +
+            "rating_sum = rating_sum + VALUES(rating_sum), " +
+            "review_count = review_count + 1, " +
+            "star_1 = star_1 + VALUES(star_1), " +
+            "star_2 = star_2 + VALUES(star_2), " +
+            "star_3 = star_3 + VALUES(star_3), " +
+            "star_4 = star_4 + VALUES(star_4), " +
+            "star_5 = star_5 + VALUES(star_5)", nativeQuery = true)
+    int recordReviewMySql(@Param("hospitalId") Long hospitalId, @Param("rating") Integer rating);
+
+    // Same upsert for PostgreSQL
+    @Modifying
+    @Query(value = "INSERT INTO hospital_rating_stats AS s " +
+            "(hospital_id, rating_sum, review_count, star_1, star_2, star_3, star_4, star_5) " +
+            "VALUES (:hospitalId, :rating, 1, " + STAR_VALUES + ") " +
+            "ON CONFLICT (hospital_id) DO UPDATE SET " +
+            "rating_sum = s.rating_sum + EXCLUDED.rating_sum, " +
+            "review_count = s.review_count + 1, " +
+            "star_1 = s.star_1 + EXCLUDED.star_1, " +
+            "star_2 = s.star_2 + EXCLUDED.star_2, " +
+            "star_3 = s.star_3 + EXCLUDED.star_3, " +
+            "star_4 = s.star_4 + EXCLUDED.star_4, " +
+            "star_5 = s.star_5 + EXCLUDED.star_5", nativeQuery = true)
+    int recordReviewPostgres(@Param("hospitalId") Long hospitalId, @Param("rating") Integer rating);
+
+    // Empty row for the drift repair to fill in, unless one exists
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO hospital_rating_stats " +
+            "(hospital_id, rating_sum, review_count, star_1, star_2, star_3, star_4, star_5) " +
+            "VALUES (:hospitalId, 0, 0, 0, 0, 0, 0, 0)", nativeQuery = true)
+    int createIfAbsentMySql(@Param("hospitalId") Long hospitalId);
+
+    @Modifying
+    @Query(value = "INSERT INTO hospital_rating_stats " +
+            "(hospital_id, rating_sum, review_count, star_1, star_2, star_3, star_4, star_5) " +
+            "VALUES (:hospitalId, 0, 0, 0, 0, 0, 0, 0) " +
+            "ON CONFLICT (hospital_id) DO NOTHING", nativeQuery = true)
+    int createIfAbsentPostgres(@Param("hospitalId") Long hospitalId);
+
+    /**
+     * Overwrite a row with recounted values, unless a review was recorded since it was read
+     * (review_count moved); the next repair picks that row up again.
+     */
+    @Modifying
+    @Query("UPDATE HospitalRatingStats s SET s.ratingSum = :ratingSum, s.reviewCount = :reviewCount, " +
+            "s.star1 = :star1, s.star2 = :star2, s.star3 = :star3, s.star4 = :star4, s.star5 = :star5 " +
+            "WHERE s.hospitalId = :hospitalId AND s.reviewCount = :expectedReviewCount")
+    int replaceIfUnchanged(@Param("hospitalId") Long hospitalId,
+                           @Param("expectedReviewCount") Long expectedReviewCount,
+                           @Param("ratingSum") Long ratingSum,
+                           @Param("reviewCount") Long reviewCount,
+                           @Param("star1") Long star1,
+                           @Param("star2") Long star2,
+                           @Param("star3") Long star3,
+                           @Param("star4") Long star4,
+                           @Param("star5") Long star5);
+}
@@ -1,6 +1,7 @@
 package com.hospital.comparison.repository;
 
 import com.hospital.comparison.entity.Hospital;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,65 +15,65 @@ public interface HospitalRepository extends JpaRepository<Hospital, Long> {
     @Query("SELECT h FROM Hospital h WHERE LOWER(h.city) = LOWER(:city)")
     List<Hospital> findByCity(@Param("city") String city);
 
-    @Query(value = "SELECT * FROM hospital h WHERE " +
-                    "h.latitude IS NOT NULL AND h.longitude IS NOT NULL AND " +
-                    "(6371 * acos(least(1, greatest(-1, cos(radians(:latitude)) * cos(radians(h.latitude)) * " +
-                    "cos(radians(h.longitude) - radians(:longitude)) + " +
-                    "sin(radians(:latitude)) * sin(radians(h.latitude)))))) <= :radiusKm", nativeQuery = true)
-    List<Hospital> findHospitalsWithinRadius(
-                    @Param("latitude") Double latitude,
-                    @Param("longitude") Double longitude,
-                    @Param("radiusKm") Double radiusKm);
+    @Query("SELECT DISTINCT h.city FROM Hospital h WHERE h.city IS NOT NULL")
+    List<String> findDistinctCities();
+
+    // Keyset batches of hospital ids, in id order
+    @Query("SELECT h.id FROM Hospital h WHERE h.id > :afterId ORDER BY h.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable page);
+
+    // Keyset batches of hospitals still waiting for coordinates, in id order
+    @Query("SELECT h FROM Hospital h WHERE (h.latitude IS NULL OR h.longitude IS NULL) AND h.id > :afterId " +
+                    "ORDER BY h.id")
+    List<Hospital> findMissingCoordinatesAfter(@Param("afterId") Long afterId, Pageable page);
 
-    @Query(value = "SELECT h.*, " +
-                    "(6371 * acos(least(1, greatest(-1, cos(radians(:latitude)) * cos(radians(h.latitude)) * " +
-                    "cos(radians(h.longitude) - radians(:longitude)) + " +
-                    "sin(radians(:latitude)) * sin(radians(h.latitude)))))) as distance " +
+    @Query("SELECT COUNT(h) FROM Hospital h WHERE h.latitude IS NULL OR h.longitude IS NULL")
+    long countMissingCoordinates();
+
+    // Spatial radius queries over the indexed hospital.location POINT SRID 4326 column
+    // (see migration V5__hospital_location_point.sql). MBRContains lets MySQL use the SPATIAL
+    // INDEX to narrow rows to the bounding box before the exact sphere distance.
+    // Rows are (hospital_id, distance_km), nearest first.
+
+    @Query(value = "SELECT h.hospital_id, " +
+                    "ST_Distance_Sphere(h.location, ST_SRID(POINT(:longitude, :latitude), 4326)) / 1000 AS distance " +
                     "FROM hospital h " +
-                    "WHERE h.latitude IS NOT NULL AND h.longitude IS NOT NULL " +
+                    "WHERE MBRContains(ST_GeomFromText(:envelope, 4326, 'axis-order=long-lat'), h.location) " +
+                    "AND h.latitude IS NOT NULL AND h.longitude IS NOT NULL " +
                     "AND LOWER(h.city) = LOWER(:city) " +
-                    "AND (6371 * acos(least(1, greatest(-1, cos(radians(:latitude)) * cos(radians(h.latitude)) * " +
-                    "cos(radians(h.longitude) - radians(:longitude)) + " +
-                    "sin(radians(:latitude)) * sin(radians(h.latitude)))))) <= :radiusKm " +
+                    "AND ST_Distance_Sphere(h.location, ST_SRID(POINT(:longitude, :latitude), 4326)) <= :radiusKm * 1000 " +
                     "ORDER BY distance ASC", nativeQuery = true)
     List<Object[]> findHospitalsWithinRadiusFromCity(
                     @Param("city") String city,
                     @Param("latitude") Double latitude,
                     @Param("longitude") Double longitude,
-                    @Param("radiusKm") Double radiusKm);
+                    @Param("radiusKm") Double radiusKm,
+                    @Param("envelope") String envelope);
 
-    @Query(value = "SELECT h.*, " +
-                    "(6371 * acos(least(1, greatest(-1, cos(radians(:latitude)) * cos(radians(h.latitude)) * " +
-                    "cos(radians(h.longitude) - radians(:longitude)) + " +
-                    "sin(radians(:latitude)) * sin(radians(h.latitude)))))) as distance " +
+    @Query(value = "SELECT h.hospital_id, " +
+                    "ST_Distance_Sphere(h.location, ST_SRID(POINT(:longitude, :latitude), 4326)) / 1000 AS distance " +
                     "FROM hospital h " +
-                    "WHERE h.latitude IS NOT NULL AND h.longitude IS NOT NULL " +
-                    "AND (6371 * acos(least(1, greatest(-1, cos(radians(:latitude)) * cos(radians(h.latitude)) * " +
-                    "cos(radians(h.longitude) - radians(:longitude)) + " +
-                    "sin(radians(:latitude)) * sin(radians(h.latitude)))))) <= :radiusKm " +
+                    "WHERE MBRContains(ST_GeomFromText(:envelope, 4326, 'axis-order=long-lat'), h.location) " +
+                    "AND h.latitude IS NOT NULL AND h.longitude IS NOT NULL " +
+                    "AND ST_Distance_Sphere(h.location, ST_SRID(POINT(:longitude, :latitude), 4326)) <= :radiusKm * 1000 " +
                     "ORDER BY distance ASC", nativeQuery = true)
     List<Object[]> findHospitalsWithinRadiusFromCoordinates(
                     @Param("latitude") Double latitude,
                     @Param("longitude") Double longitude,
-                    @Param("radiusKm") Double radiusKm);
+                    @Param("radiusKm") Double radiusKm,
+                    @Param("envelope") String envelope);
+
+    @Query("SELECT h.id, h.latitude, h.longitude, h.city FROM Hospital h WHERE h.latitude IS NOT NULL AND h.longitude IS NOT NULL")
+    List<Object[]> findAllCoordinates();
+
+    @Query("SELECT h.id, h.latitude, h.longitude FROM Hospital h " +
+            "WHERE LOWER(h.city) = LOWER(:city) AND h.latitude IS NOT NULL AND h.longitude IS NOT NULL")
+    List<Object[]> findCoordinatesByCity(@Param("city") String city);
+
+    // Rows are (id, name, address, city, latitude, longitude, phone, rating) for the catalog snapshot
+    @Query("SELECT h.id, h.name, h.address, h.city, h.latitude, h.longitude, h.phone, h.rating FROM Hospital h")
+    List<Object[]> findCatalogRows();
 
     @Query("SELECT h.id, h.name, h.latitude, h.longitude FROM Hospital h WHERE h.city = :city AND h.latitude IS NOT NULL AND h.longitude IS NOT NULL")
     List<Object[]> getHospitalCoordinates(@Param("city") String city);
-
-    @Query(value = "SELECT h.*, " +
-                    "(6371 * acos(cos(radians(:latitude)) * cos(radians(h.latitude)) * " +
-                    "cos(radians(h.longitude) - radians(:longitude)) + " +
-                    "sin(radians(:latitude)) * sin(radians(h.latitude)))) as distance " +
-                    "FROM hospital h " +
-                    "WHERE h.latitude IS NOT NULL AND h.longitude IS NOT NULL " +
-                    "AND LOWER(h.city) = LOWER(:city) " +
-                    "AND (6371 * acos(cos(radians(:latitude)) * cos(radians(h.latitude)) * " +
-                    "cos(radians(h.longitude) - radians(:longitude)) + " +
-                    "sin(radians(:latitude)) * sin(radians(h.latitude)))) <= :radiusKm " +
-                    "ORDER BY distance ASC", nativeQuery = true)
-    List<Object[]> findHospitalsWithinRadiusFromCitySimple(
-                    @Param("city") String city,
-                    @Param("latitude") Double latitude,
-                    @Param("longitude") Double longitude,
-                    @Param("radiusKm") Double radiusKm);
 }
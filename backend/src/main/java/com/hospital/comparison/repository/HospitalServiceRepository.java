@@ -14,14 +14,24 @@ public interface HospitalServiceRepository extends JpaRepository<HospitalService
         @Query("SELECT hs FROM HospitalService hs WHERE hs.service.id = :serviceId")
         List<HospitalService> findByServiceId(@Param("serviceId") Long serviceId);
 
+        @Query("SELECT hs.hospital.id FROM HospitalService hs WHERE hs.service.id = :serviceId")
+        List<Long> findHospitalIdsByServiceId(@Param("serviceId") Long serviceId);
+
         @Query("SELECT hs FROM HospitalService hs WHERE hs.hospital.id = :hospitalId")
         List<HospitalService> findByHospitalId(@Param("hospitalId") Long hospitalId);
 
-        @Query("SELECT hs FROM HospitalService hs WHERE hs.service.id = :serviceId AND hs.hospital.id IN :hospitalIds")
+        @Query("SELECT hs FROM HospitalService hs JOIN FETCH hs.hospital " +
+                        "WHERE hs.service.id = :serviceId AND hs.hospital.id IN :hospitalIds")
         List<HospitalService> findByServiceIdAndHospitalIds(
                         @Param("serviceId") Long serviceId,
                         @Param("hospitalIds") List<Long> hospitalIds);
 
+        @Query("SELECT hs FROM HospitalService hs JOIN FETCH hs.hospital h " +
+                        "WHERE hs.service.id = :serviceId AND LOWER(h.city) = LOWER(:city)")
+        List<HospitalService> findByServiceIdAndHospitalCity(
+                        @Param("serviceId") Long serviceId,
+                        @Param("city") String city);
+
         @Query("SELECT hs FROM HospitalService hs WHERE hs.service.id = :serviceId AND hs.availability = true")
         List<HospitalService> findAvailableByServiceId(@Param("serviceId") Long serviceId);
 
@@ -29,4 +39,17 @@ public interface HospitalServiceRepository extends JpaRepository<HospitalService
         HospitalService findByHospitalIdAndServiceId(
                         @Param("hospitalId") Long hospitalId,
                         @Param("serviceId") Long serviceId);
+
+        // Rows are (hospitalId, serviceId, price, availability, waitingTime) for the catalog snapshot
+        @Query("SELECT hs.hospital.id, hs.service.id, hs.price, hs.availability, hs.waitingTime FROM HospitalService hs")
+        List<Object[]> findCatalogRows();
+
+        // Rows are (hospitalId, serviceId, hospitalName, serviceName, availability) for bulk booking validation
+        @Query("SELECT hs.hospital.id, hs.service.id, hs.hospital.name, hs.service.name, hs.availability " +
+                        "FROM HospitalService hs")
+        List<Object[]> findBookingRows();
+
+        @Query("SELECT hs.hospital.id, hs.service.id, hs.price, hs.availability, hs.waitingTime " +
+                        "FROM HospitalService hs WHERE hs.service.id = :serviceId")
+        List<Object[]> findCatalogRowsByServiceId(@Param("serviceId") Long serviceId);
 }
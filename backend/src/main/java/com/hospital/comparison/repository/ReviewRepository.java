@@ -19,4 +19,9 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     @Query("SELECT COUNT(r) FROM Review r WHERE r.hospital.id = :hospitalId")
     Long countByHospitalId(@Param("hospitalId") Long hospitalId);
+
+    // (hospital id, rating, number of reviews) rows, for recounting rating stats
+    @Query("SELECT r.hospital.id, r.rating, COUNT(r) FROM Review r WHERE r.hospital.id IN :hospitalIds " +
+            "GROUP BY r.hospital.id, r.rating")
+    List<Object[]> countRatingsByHospitalIds(@Param("hospitalIds") List<Long> hospitalIds);
 }
@@ -0,0 +1,313 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.dto.BulkImportResultDTO;
+import com.hospital.comparison.repository.HospitalServiceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk appointment booking from partner clinic files.
+ *
+ * Input lines are {@code hospitalId,serviceId,userId,patientName,patientPhone,appointmentDate}
+ * with the date as yyyy-MM-dd'T'HH:mm; an optional header line, blank lines and
+ * lines starting with # are skipped, and fields may be double-quoted. The input is
+ * read as a stream and written in batches of batchSize rows, so memory stays flat
+ * for any file size. Batches commit as they go, so the import never fails as a
+ * whole: rows beyond maxRows, or left unread when the upload breaks off, are
+ * reported as rejected alongside the ones already booked.
+ *
+ * Rows get the same checks as a single booking, with (hospital, service) pairs
+ * validated against one lookup of all offerings made at the start of the import.
+ * Each batch runs in its own transaction: it takes its places in the day slots
+ * (rows beyond a slot's capacity are rejected) and is inserted with one JDBC
+ * batch. Appointment keeps IDENTITY ids: that only disables Hibernate's insert
+ * batching, and these inserts bypass Hibernate, so the driver can send each
+ * batch as one multi-row INSERT (rewriteBatchedStatements).
+ */
+@Service
+public class AppointmentBulkImportService {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final Pattern PHONE = Pattern.compile("^[0-9]{10}$");
+
+    private static final String INSERT_SQL = "INSERT INTO appointment (hospital_id, user_id, service_id, " +
+            "hospital_name, service_name, patient_name, patient_phone, appointment_date, status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'BOOKED')";
+
+    @Autowired
+    private HospitalServiceRepository hospitalServiceRepository;
+
+    @Autowired
+    private SlotInventoryService slotInventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${appointments.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${appointments.bulk.max-rows:100000}")
+    private int maxRows;
+
+    @Value("${appointments.bulk.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public BulkImportResultDTO importAppointments(Reader input) {
+        long started = System.currentTimeMillis();
+        Map<String, Offering> offerings = loadOfferings();
+        BulkImportResultDTO result = new BulkImportResultDTO();
+
+        BufferedReader reader = new BufferedReader(input);
+        List<Row> batch = new ArrayList<>(batchSize);
+        String line;
+        int lineNumber = 0;
+        int rows = 0;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (rows == 0 && line.toLowerCase(Locale.ROOT).startsWith("hospitalid")) continue;
+
+                // Earlier batches are already committed: rows over the cap are rejected, not the file
+                if (++rows > maxRows) {
+                    reject(result, lineNumber, "Not imported, the file has more than " + maxRows + " rows");
+                    continue;
+                }
+                try {
+                    batch.add(parse(lineNumber, line, offerings));
+                } catch (IllegalArgumentException e) {
+                    reject(result, lineNumber, e.getMessage());
+                }
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, result);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Keep what was committed and report the unread remainder instead of failing the import
+            System.err.println("❌ Bulk import input failed after line " + lineNumber + ": " + e.getMessage());
+            for (Row row : batch) {
+                reject(result, row.line, "Not imported, the upload was interrupted");
+            }
+            batch.clear();
+            reject(result, lineNumber + 1, "Could not read the rest of the file: " + e.getMessage());
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, result);
+        }
+
+        result.setDurationMs(System.currentTimeMillis() - started);
+        System.out.println("✅ Bulk import: " + result.getAccepted() + " accepted, " + result.getRejected()
+                + " rejected in " + result.getDurationMs() + " ms");
+        return result;
+    }
+
+    /**
+     * All (hospital, service) offerings with the names stored on appointments, in one query
+     */
+    private Map<String, Offering> loadOfferings() {
+        Map<String, Offering> offerings = new HashMap<>();
+        for (Object[] row : hospitalServiceRepository.findBookingRows()) {
+            offerings.put(offeringKey((Long) row[0], (Long) row[1]),
+                    new Offering((String) row[2], (String) row[3], Boolean.TRUE.equals(row[4])));
+        }
+        return offerings;
+    }
+
+    private Row parse(int lineNumber, String line, Map<String, Offering> offerings) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != 6) {
+            throw new IllegalArgumentException(
+                    "Expected hospitalId,serviceId,userId,patientName,patientPhone,appointmentDate");
+        }
+
+        Row row = new Row();
+        row.line = lineNumber;
+        try {
+            row.hospitalId = Long.parseLong(fields.get(0).trim());
+            row.serviceId = Long.parseLong(fields.get(1).trim());
+            row.userId = Long.parseLong(fields.get(2).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Hospital, service and user IDs must be numbers");
+        }
+        row.patientName = fields.get(3).trim();
+        row.patientPhone = fields.get(4).trim();
+        if (row.patientName.isEmpty()) {
+            throw new IllegalArgumentException("Patient name is required");
+        }
+        if (!PHONE.matcher(row.patientPhone).matches()) {
+            throw new IllegalArgumentException("Phone number must be 10 digits");
+        }
+        try {
+            row.appointmentDate = LocalDateTime.parse(fields.get(5).trim(), DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Appointment date must be yyyy-MM-dd'T'HH:mm");
+        }
+        if (!row.appointmentDate.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Appointment date must be in the future");
+        }
+
+        row.offering = offerings.get(offeringKey(row.hospitalId, row.serviceId));
+        if (row.offering == null) {
+            throw new IllegalArgumentException("The selected hospital does not offer this service");
+        }
+        if (!row.offering.available) {
+            throw new IllegalArgumentException("This service is currently not available at the selected hospital");
+        }
+        return row;
+    }
+
+    /**
+     * Fields of one CSV line; fields may be quoted ("Doe, John") with "" for a literal quote
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.toString().trim().isEmpty()) {
+                field.setLength(0);
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Take slot places for the batch and insert the rows that got one, in one transaction
+     */
+    private void writeBatch(List<Row> batch, BulkImportResultDTO result) {
+        List<Row> rejected = new ArrayList<>();
+        try {
+            Integer inserted = transactionTemplate.execute(status -> {
+                List<Row> admitted = reserveSlots(batch, rejected);
+                jdbcTemplate.batchUpdate(INSERT_SQL, admitted, admitted.size(), (ps, row) -> {
+                    ps.setLong(1, row.hospitalId);
+                    ps.setLong(2, row.userId);
+                    ps.setLong(3, row.serviceId);
+                    ps.setString(4, row.offering.hospitalName);
+                    ps.setString(5, row.offering.serviceName);
+                    ps.setString(6, row.patientName);
+                    ps.setString(7, row.patientPhone);
+                    ps.setTimestamp(8, Timestamp.valueOf(row.appointmentDate));
+                });
+                return admitted.size();
+            });
+            result.setAccepted(result.getAccepted() + (inserted != null ? inserted : 0));
+            for (Row row : rejected) {
+                reject(result, row.line, "No appointments left for this service on " + row.appointmentDate.toLocalDate());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ Bulk import batch failed: " + e.getMessage());
+            for (Row row : batch) {
+                reject(result, row.line, "Batch could not be saved: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rows that got a place in their day slot; the rest are added to rejected. Each slot is
+     * asked for all its rows at once and only falls back to one place at a time when full.
+     */
+    private List<Row> reserveSlots(List<Row> batch, List<Row> rejected) {
+        Map<String, List<Row>> bySlot = new LinkedHashMap<>();
+        for (Row row : batch) {
+            bySlot.computeIfAbsent(offeringKey(row.hospitalId, row.serviceId) + ":" + row.appointmentDate.toLocalDate(),
+                    k -> new ArrayList<>()).add(row);
+        }
+
+        List<Row> admitted = new ArrayList<>(batch.size());
+        for (List<Row> slotRows : bySlot.values()) {
+            Row first = slotRows.get(0);
+            LocalDate day = first.appointmentDate.toLocalDate();
+            try {
+                slotInventoryService.reserve(first.hospitalId, first.serviceId, day, slotRows.size());
+                admitted.addAll(slotRows);
+            } catch (IllegalArgumentException full) {
+                int i = 0;
+                try {
+                    for (; i < slotRows.size(); i++) {
+                        slotInventoryService.reserve(first.hospitalId, first.serviceId, day, 1);
+                        admitted.add(slotRows.get(i));
+                    }
+                } catch (IllegalArgumentException e) {
+                    rejected.addAll(slotRows.subList(i, slotRows.size()));
+                }
+            }
+        }
+        return admitted;
+    }
+
+    private void reject(BulkImportResultDTO result, int line, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new BulkImportResultDTO.RowError(line, message));
+        }
+    }
+
+    private static String offeringKey(Long hospitalId, Long serviceId) {
+        return hospitalId + ":" + serviceId;
+    }
+
+    private static class Offering {
+        final String hospitalName;
+        final String serviceName;
+        final boolean available;
+
+        Offering(String hospitalName, String serviceName, boolean available) {
+            this.hospitalName = hospitalName;
+            this.serviceName = serviceName;
+            this.available = available;
+        }
+    }
+
+    private static class Row {
+        int line;
+        Long hospitalId;
+        Long serviceId;
+        Long userId;
+        String patientName;
+        String patientPhone;
+        LocalDateTime appointmentDate;
+        Offering offering;
+    }
+}
@@ -1,5 +1,6 @@
 package com.hospital.comparison.service;
 
+import com.hospital.comparison.dto.AppointmentPageDTO;
 import com.hospital.comparison.dto.AppointmentRequestDTO;
 import com.hospital.comparison.dto.AppointmentResponseDTO;
 import com.hospital.comparison.entity.Appointment;
@@ -7,22 +8,40 @@ import com.hospital.comparison.entity.HospitalService;
 import com.hospital.comparison.repository.AppointmentRepository;
 import com.hospital.comparison.repository.HospitalServiceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 public class AppointmentService {
 
+    // Later than any stored appointment (and within the DATETIME range), so the first page starts at the top
+    private static final LocalDateTime FIRST_PAGE_DATE = LocalDateTime.of(9999, 12, 31, 23, 59);
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
     @Autowired
     private HospitalServiceRepository hospitalServiceRepository;
 
+    @Autowired
+    private SlotInventoryService slotInventoryService;
+
+    @Value("${appointments.page.default-limit:100}")
+    private int defaultPageLimit;
+
+    @Value("${appointments.page.max-limit:500}")
+    private int maxPageLimit;
+
     /**
      * Book an appointment with validation
      */
@@ -42,6 +61,10 @@ public class AppointmentService {
             throw new IllegalArgumentException("This service is currently not available at the selected hospital");
         }
 
+        // Take a place in the day's slot; given back if the booking does not commit
+        slotInventoryService.reserve(request.getHospitalId(), request.getServiceId(),
+                request.getAppointmentDate().toLocalDate(), 1);
+
         // Create appointment
         Appointment appointment = new Appointment();
         appointment.setHospitalId(request.getHospitalId());
@@ -61,6 +84,24 @@ public class AppointmentService {
         return mapToDTO(saved);
     }
 
+    /**
+     * Cancel a booked appointment and give its place in the day's slot back
+     */
+    @Transactional
+    public AppointmentResponseDTO cancelAppointment(Long id) {
+        Appointment appointment = appointmentRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Appointment not found with id: " + id));
+        if ("CANCELLED".equals(appointment.getStatus())) {
+            return mapToDTO(appointment);
+        }
+
+        appointment.setStatus("CANCELLED");
+        Appointment saved = appointmentRepository.save(appointment);
+        slotInventoryService.release(appointment.getHospitalId(), appointment.getServiceId(),
+                appointment.getAppointmentDate().toLocalDate(), 1);
+        return mapToDTO(saved);
+    }
+
     /**
      * Get appointment by ID
      */
@@ -71,30 +112,65 @@ public class AppointmentService {
     }
 
     /**
-     * Get all appointments for a hospital
+     * One page of a hospital's appointments, newest first
+     */
+    public AppointmentPageDTO getAppointmentsByHospital(Long hospitalId, Integer limit, String after) {
+        return page(limit, after,
+                (date, id, page) -> appointmentRepository.findPageByHospitalId(hospitalId, date, id, page));
+    }
+
+    /**
+     * One page of appointments by patient phone number, newest first
      */
-    public List<AppointmentResponseDTO> getAppointmentsByHospital(Long hospitalId) {
-        return appointmentRepository.findByHospitalId(hospitalId).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    public AppointmentPageDTO getAppointmentsByPhone(String phone, Integer limit, String after) {
+        return page(limit, after,
+                (date, id, page) -> appointmentRepository.findPageByPatientPhone(phone, date, id, page));
     }
 
     /**
-     * Get appointments by patient phone number
+     * One page of appointments by user ID, newest first
      */
-    public List<AppointmentResponseDTO> getAppointmentsByPhone(String phone) {
-        return appointmentRepository.findByPatientPhone(phone).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    public AppointmentPageDTO getAppointmentsByUserId(Long userId, Integer limit, String after) {
+        return page(limit, after,
+                (date, id, page) -> appointmentRepository.findPageByUserId(userId, date, id, page));
     }
 
     /**
-     * Get appointments by user ID
+     * Keyset page on (appointment_date, id): at most limit rows (default appointments.page.default-limit)
+     * strictly after the cursor. One extra row is fetched to tell whether another page exists.
      */
-    public List<AppointmentResponseDTO> getAppointmentsByUserId(Long userId) {
-        return appointmentRepository.findByUserId(userId).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    private AppointmentPageDTO page(Integer limit, String after, PageQuery query) {
+        int pageSize = limit != null ? limit : defaultPageLimit;
+        if (pageSize < 1 || pageSize > maxPageLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageLimit);
+        }
+
+        LocalDateTime afterDate = FIRST_PAGE_DATE;
+        long afterId = Long.MAX_VALUE;
+        if (after != null && !after.trim().isEmpty()) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(after.trim()), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                afterDate = LocalDateTime.parse(raw.substring(0, separator));
+                afterId = Long.parseLong(raw.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid appointment cursor");
+            }
+        }
+
+        List<AppointmentResponseDTO> rows = query.fetch(afterDate, afterId, PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            AppointmentResponseDTO last = rows.get(pageSize - 1);
+            String raw = last.getAppointmentDate() + "|" + last.getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        return new AppointmentPageDTO(new ArrayList<>(rows), nextCursor);
+    }
+
+    private interface PageQuery {
+        List<AppointmentResponseDTO> fetch(LocalDateTime afterDate, Long afterId, Pageable page);
     }
 
     private AppointmentResponseDTO mapToDTO(Appointment appointment) {
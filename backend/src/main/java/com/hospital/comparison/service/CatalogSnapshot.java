@@ -0,0 +1,314 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.dto.HospitalSearchDTO;
+import com.hospital.comparison.entity.HospitalRatingStats;
+
+import java.util.*;
+
+/**
+ * Immutable, read-optimized copy of everything the search path needs, laid out
+ * as parallel primitive arrays (struct-of-arrays).
+ *
+ * Hospitals are addressed by ordinal, their position in the ascending id array.
+ * For every service the offerings are stored as arrays sorted by hospital
+ * ordinal. Updates never modify a snapshot: the with* methods return a new
+ * snapshot that shares every array that did not change. Review aggregates are
+ * stored in chunks of RATING_CHUNK hospitals, so a new review copies one chunk
+ * rather than arrays sized by the whole catalog.
+ */
+public final class CatalogSnapshot {
+
+    public static final int NO_WAITING_TIME = Integer.MIN_VALUE;
+
+    private static final int RATING_CHUNK_BITS = 10;
+    static final int RATING_CHUNK = 1 << RATING_CHUNK_BITS;
+
+    private final long[] hospitalIds;
+    private final String[] names;
+    private final String[] addresses;
+    private final String[] cities;
+    private final String[] phones;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] fallbackRatings;
+    // Per chunk of hospitals: rating sum and review count interleaved
+    private final long[][] ratings;
+    private final Map<String, int[]> ordinalsByCity;
+    private final Map<Long, ServiceOfferings> offeringsByService;
+
+    private CatalogSnapshot(long[] hospitalIds, String[] names, String[] addresses, String[] cities,
+            String[] phones, double[] latitudes, double[] longitudes, double[] fallbackRatings,
+            long[][] ratings, Map<String, int[]> ordinalsByCity,
+            Map<Long, ServiceOfferings> offeringsByService) {
+        this.hospitalIds = hospitalIds;
+        this.names = names;
+        this.addresses = addresses;
+        this.cities = cities;
+        this.phones = phones;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.fallbackRatings = fallbackRatings;
+        this.ratings = ratings;
+        this.ordinalsByCity = ordinalsByCity;
+        this.offeringsByService = offeringsByService;
+    }
+
+    /**
+     * Build a snapshot from projection rows.
+     *
+     * @param hospitalRows (id, name, address, city, latitude, longitude, phone, rating)
+     * @param offeringRows (hospitalId, serviceId, price, availability, waitingTime)
+     * @param ratingStats  pre-aggregated review stats
+     */
+    public static CatalogSnapshot build(List<Object[]> hospitalRows, List<Object[]> offeringRows,
+            List<HospitalRatingStats> ratingStats) {
+        List<Object[]> sorted = new ArrayList<>(hospitalRows);
+        sorted.sort(Comparator.comparingLong(row -> ((Number) row[0]).longValue()));
+
+        int n = sorted.size();
+        long[] hospitalIds = new long[n];
+        String[] names = new String[n];
+        String[] addresses = new String[n];
+        String[] cities = new String[n];
+        String[] phones = new String[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        double[] fallbackRatings = new double[n];
+        Map<String, List<Integer>> cityOrdinals = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            Object[] row = sorted.get(i);
+            hospitalIds[i] = ((Number) row[0]).longValue();
+            names[i] = (String) row[1];
+            addresses[i] = (String) row[2];
+            cities[i] = (String) row[3];
+            latitudes[i] = row[4] != null ? ((Number) row[4]).doubleValue() : Double.NaN;
+            longitudes[i] = row[5] != null ? ((Number) row[5]).doubleValue() : Double.NaN;
+            phones[i] = (String) row[6];
+            fallbackRatings[i] = row[7] != null ? ((Number) row[7]).doubleValue() : Double.NaN;
+
+            String cityKey = normalizeCity(cities[i]);
+            if (cityKey != null) {
+                cityOrdinals.computeIfAbsent(cityKey, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<String, int[]> ordinalsByCity = new HashMap<>();
+        cityOrdinals.forEach((city, ordinals) ->
+                ordinalsByCity.put(city, ordinals.stream().mapToInt(Integer::intValue).toArray()));
+
+        long[][] ratings = new long[(n + RATING_CHUNK - 1) / RATING_CHUNK][];
+        for (int chunk = 0; chunk < ratings.length; chunk++) {
+            ratings[chunk] = new long[2 * Math.min(RATING_CHUNK, n - chunk * RATING_CHUNK)];
+        }
+        for (HospitalRatingStats stats : ratingStats) {
+            int ordinal = Arrays.binarySearch(hospitalIds, stats.getHospitalId());
+            if (ordinal >= 0) {
+                long[] chunk = ratings[ordinal >>> RATING_CHUNK_BITS];
+                chunk[ratingSlot(ordinal)] = stats.getRatingSum();
+                chunk[ratingSlot(ordinal) + 1] = stats.getReviewCount();
+            }
+        }
+
+        CatalogSnapshot snapshot = new CatalogSnapshot(hospitalIds, names, addresses, cities, phones,
+                latitudes, longitudes, fallbackRatings, ratings, ordinalsByCity, Collections.emptyMap());
+
+        Map<Long, List<Object[]>> rowsByService = new HashMap<>();
+        for (Object[] row : offeringRows) {
+            rowsByService.computeIfAbsent(((Number) row[1]).longValue(), k -> new ArrayList<>()).add(row);
+        }
+        Map<Long, ServiceOfferings> offeringsByService = new HashMap<>();
+        rowsByService.forEach((serviceId, rows) -> offeringsByService.put(serviceId, snapshot.offeringsFrom(rows)));
+
+        return new CatalogSnapshot(hospitalIds, names, addresses, cities, phones, latitudes, longitudes,
+                fallbackRatings, ratings, ordinalsByCity, offeringsByService);
+    }
+
+    /**
+     * Build the offering arrays of one service against this snapshot's hospital ordinals.
+     * Rows for hospitals unknown to the snapshot are skipped.
+     *
+     * @param offeringRows (hospitalId, serviceId, price, availability, waitingTime)
+     */
+    public ServiceOfferings offeringsFrom(List<Object[]> offeringRows) {
+        // Keyed by ordinal so the arrays come out sorted and duplicates collapse
+        TreeMap<Integer, Object[]> byOrdinal = new TreeMap<>();
+        for (Object[] row : offeringRows) {
+            int ordinal = ordinalOf(((Number) row[0]).longValue());
+            if (ordinal >= 0) {
+                byOrdinal.put(ordinal, row);
+            }
+        }
+
+        int size = byOrdinal.size();
+        int[] hospitalOrdinals = new int[size];
+        double[] prices = new double[size];
+        boolean[] availability = new boolean[size];
+        int[] waitingTimes = new int[size];
+
+        int i = 0;
+        for (Map.Entry<Integer, Object[]> entry : byOrdinal.entrySet()) {
+            Object[] row = entry.getValue();
+            hospitalOrdinals[i] = entry.getKey();
+            prices[i] = row[2] != null ? ((Number) row[2]).doubleValue() : 0.0;
+            availability[i] = Boolean.TRUE.equals(row[3]);
+            waitingTimes[i] = row[4] != null ? ((Number) row[4]).intValue() : NO_WAITING_TIME;
+            i++;
+        }
+        return new ServiceOfferings(hospitalOrdinals, prices, availability, waitingTimes);
+    }
+
+    /**
+     * Copy of this snapshot with the offerings of one service replaced
+     */
+    public CatalogSnapshot withOfferings(Long serviceId, ServiceOfferings offerings) {
+        Map<Long, ServiceOfferings> updated = new HashMap<>(offeringsByService);
+        if (offerings == null || offerings.size() == 0) {
+            updated.remove(serviceId);
+        } else {
+            updated.put(serviceId, offerings);
+        }
+        return new CatalogSnapshot(hospitalIds, names, addresses, cities, phones, latitudes, longitudes,
+                fallbackRatings, ratings, ordinalsByCity, updated);
+    }
+
+    /**
+     * Copy of this snapshot with one hospital's review aggregates replaced
+     */
+    public CatalogSnapshot withRating(int ordinal, long ratingSum, long reviewCount) {
+        long[][] updated = ratings.clone();
+        long[] chunk = updated[ordinal >>> RATING_CHUNK_BITS].clone();
+        chunk[ratingSlot(ordinal)] = ratingSum;
+        chunk[ratingSlot(ordinal) + 1] = reviewCount;
+        updated[ordinal >>> RATING_CHUNK_BITS] = chunk;
+        return new CatalogSnapshot(hospitalIds, names, addresses, cities, phones, latitudes, longitudes,
+                fallbackRatings, updated, ordinalsByCity, offeringsByService);
+    }
+
+    public int size() {
+        return hospitalIds.length;
+    }
+
+    /**
+     * Ordinal of the hospital, or -1 when it is not in the snapshot
+     */
+    public int ordinalOf(long hospitalId) {
+        int ordinal = Arrays.binarySearch(hospitalIds, hospitalId);
+        return ordinal >= 0 ? ordinal : -1;
+    }
+
+    public long hospitalId(int ordinal) {
+        return hospitalIds[ordinal];
+    }
+
+    public double latitude(int ordinal) {
+        return latitudes[ordinal];
+    }
+
+    public double longitude(int ordinal) {
+        return longitudes[ordinal];
+    }
+
+    /**
+     * Ordinals of all hospitals in the city (case-insensitive), never null
+     */
+    public int[] ordinalsInCity(String city) {
+        String cityKey = normalizeCity(city);
+        int[] ordinals = cityKey != null ? ordinalsByCity.get(cityKey) : null;
+        return ordinals != null ? ordinals : new int[0];
+    }
+
+    /**
+     * Offerings of the service, or null when no hospital offers it
+     */
+    public ServiceOfferings offerings(Long serviceId) {
+        return offeringsByService.get(serviceId);
+    }
+
+    /**
+     * Average rating shown in search results: review average, else the hospital's own rating
+     */
+    public double averageRating(int ordinal) {
+        long[] chunk = ratings[ordinal >>> RATING_CHUNK_BITS];
+        long ratingSum = chunk[ratingSlot(ordinal)];
+        long reviewCount = chunk[ratingSlot(ordinal) + 1];
+        if (reviewCount > 0 && ratingSum > 0) {
+            return (double) ratingSum / reviewCount;
+        }
+        return Double.isNaN(fallbackRatings[ordinal]) ? 0.0 : fallbackRatings[ordinal];
+    }
+
+    /**
+     * Build the search DTO for one offering (distance is left for the caller)
+     */
+    public HospitalSearchDTO toSearchDTO(ServiceOfferings offerings, int index) {
+        int ordinal = offerings.hospitalOrdinals[index];
+
+        HospitalSearchDTO dto = new HospitalSearchDTO();
+        dto.setId(hospitalIds[ordinal]);
+        dto.setName(names[ordinal]);
+        dto.setAddress(addresses[ordinal]);
+        dto.setCity(cities[ordinal]);
+        dto.setLatitude(Double.isNaN(latitudes[ordinal]) ? null : latitudes[ordinal]);
+        dto.setLongitude(Double.isNaN(longitudes[ordinal]) ? null : longitudes[ordinal]);
+        dto.setPhone(phones[ordinal]);
+        dto.setPrice(offerings.prices[index]);
+        dto.setAvailability(offerings.availability[index]);
+        dto.setWaitingTime(offerings.waitingTimes[index] == NO_WAITING_TIME ? null : offerings.waitingTimes[index]);
+        dto.setAverageRating(averageRating(ordinal));
+        dto.setReviewCount(reviewCount(ordinal));
+        return dto;
+    }
+
+    public long reviewCount(int ordinal) {
+        return ratings[ordinal >>> RATING_CHUNK_BITS][ratingSlot(ordinal) + 1];
+    }
+
+    /**
+     * Index of the hospital's rating sum within its chunk; the review count follows it
+     */
+    private static int ratingSlot(int ordinal) {
+        return 2 * (ordinal & (RATING_CHUNK - 1));
+    }
+
+    private static String normalizeCity(String city) {
+        return city == null || city.trim().isEmpty() ? null : city.trim().toLowerCase();
+    }
+
+    /**
+     * Offerings of one service as parallel arrays sorted by hospital ordinal
+     */
+    public static final class ServiceOfferings {
+        private final int[] hospitalOrdinals;
+        private final double[] prices;
+        private final boolean[] availability;
+        private final int[] waitingTimes;
+
+        ServiceOfferings(int[] hospitalOrdinals, double[] prices, boolean[] availability, int[] waitingTimes) {
+            this.hospitalOrdinals = hospitalOrdinals;
+            this.prices = prices;
+            this.availability = availability;
+            this.waitingTimes = waitingTimes;
+        }
+
+        public int size() {
+            return hospitalOrdinals.length;
+        }
+
+        /**
+         * Position of the hospital's offering, or -1 when the hospital does not offer the service
+         */
+        public int indexOf(int ordinal) {
+            int index = Arrays.binarySearch(hospitalOrdinals, ordinal);
+            return index >= 0 ? index : -1;
+        }
+
+        public int hospitalOrdinal(int index) {
+            return hospitalOrdinals[index];
+        }
+
+        public double price(int index) {
+            return prices[index];
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.entity.HospitalRatingStats;
+import com.hospital.comparison.event.HospitalChangedEvent;
+import com.hospital.comparison.event.HospitalServiceChangedEvent;
+import com.hospital.comparison.event.ReviewAddedEvent;
+import com.hospital.comparison.repository.HospitalRatingStatsRepository;
+import com.hospital.comparison.repository.HospitalRepository;
+import com.hospital.comparison.repository.HospitalServiceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the current {@link CatalogSnapshot}.
+ *
+ * The snapshot is built once the application is ready and then patched after
+ * each committed write: a changed hospital service reloads that service's
+ * offerings, a new review reloads that hospital's rating aggregates, and a
+ * hospital write rebuilds everything (ordinals may shift). Hospital-write
+ * rebuilds run in the background after search.catalog-snapshot.rebuild-delay-ms,
+ * so a burst of writes costs one rebuild and never blocks the writer. Bulk jobs
+ * that save many hospitals suspend those rebuilds and get a single one when they
+ * resume.
+ * Readers never lock; they grab the current reference and work on an immutable
+ * object.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private HospitalServiceRepository hospitalServiceRepository;
+
+    @Autowired
+    private HospitalRatingStatsRepository ratingStatsRepository;
+
+    @Value("${search.catalog-snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.catalog-snapshot.rebuild-delay-ms:500}")
+    private long rebuildDelayMillis;
+
+    private volatile CatalogSnapshot current;
+
+    // Hospital-write rebuilds are deferred while suspended > 0
+    private int suspended = 0;
+    private boolean rebuildPending = false;
+
+    // True from scheduling a rebuild until it starts; writes in between join it
+    private boolean rebuildScheduled = false;
+    private ScheduledExecutorService rebuilder;
+
+    @PostConstruct
+    void init() {
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-snapshot-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    /**
+     * The current snapshot, or null while it is disabled, not built yet or failed to build
+     */
+    public CatalogSnapshot current() {
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        if (!enabled) return;
+
+        try {
+            long start = System.currentTimeMillis();
+            current = CatalogSnapshot.build(
+                    hospitalRepository.findCatalogRows(),
+                    hospitalServiceRepository.findCatalogRows(),
+                    ratingStatsRepository.findAll());
+            System.out.println("✅ Catalog snapshot built with " + current.size() + " hospitals in "
+                    + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            current = null;
+            System.err.println("❌ Catalog snapshot build failed, search will query the database: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Defer the rebuilds caused by hospital writes until {@link #resumeRebuilds()}
+     */
+    public synchronized void suspendRebuilds() {
+        suspended++;
+    }
+
+    /**
+     * End a {@link #suspendRebuilds()}; rebuilds once if hospitals changed meanwhile
+     */
+    public synchronized void resumeRebuilds() {
+        if (suspended > 0) {
+            suspended--;
+        }
+        if (suspended == 0 && rebuildPending) {
+            rebuildPending = false;
+            if (current != null) {
+                scheduleRebuild();
+            }
+        }
+    }
+
+    /**
+     * Rebuild after the delay unless a rebuild is already waiting to start. A
+     * rebuild that has started may have read the rows before the latest write,
+     * so writes during it schedule another one.
+     */
+    private synchronized void scheduleRebuild() {
+        if (rebuildScheduled) return;
+        rebuildScheduled = true;
+        rebuilder.schedule(() -> {
+            synchronized (this) {
+                rebuildScheduled = false;
+            }
+            rebuild();
+        }, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onHospitalChanged(HospitalChangedEvent event) {
+        if (current == null) return;
+        if (suspended > 0) {
+            rebuildPending = true;
+            return;
+        }
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onHospitalServiceChanged(HospitalServiceChangedEvent event) {
+        CatalogSnapshot snapshot = current;
+        if (snapshot == null || event.getServiceId() == null) return;
+
+        try {
+            CatalogSnapshot.ServiceOfferings offerings = snapshot.offeringsFrom(
+                    hospitalServiceRepository.findCatalogRowsByServiceId(event.getServiceId()));
+            current = snapshot.withOfferings(event.getServiceId(), offerings);
+        } catch (Exception e) {
+            System.err.println("❌ Catalog snapshot patch failed for service " + event.getServiceId()
+                    + ", rebuilding: " + e.getMessage());
+            scheduleRebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onReviewAdded(ReviewAddedEvent event) {
+        CatalogSnapshot snapshot = current;
+        if (snapshot == null || event.getHospitalId() == null) return;
+
+        int ordinal = snapshot.ordinalOf(event.getHospitalId());
+        if (ordinal < 0) return;
+
+        try {
+            HospitalRatingStats stats = ratingStatsRepository.findById(event.getHospitalId()).orElse(null);
+            if (stats != null) {
+                current = snapshot.withRating(ordinal, stats.getRatingSum(), stats.getReviewCount());
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Catalog snapshot rating patch failed for hospital " + event.getHospitalId()
+                    + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.hospital.comparison.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * The database product behind the DataSource (mysql, postgresql, ...), read once
+ * from the JDBC metadata, for the few statements that have no portable form
+ */
+@Component
+public class DatabaseVendor {
+
+    public static final String MYSQL = "mysql";
+    public static final String POSTGRESQL = "postgresql";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile String name;
+
+    public String name() {
+        String current = name;
+        if (current == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                current = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).replace(" ", "");
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot read the database product name", e);
+            }
+            name = current;
+        }
+        return current;
+    }
+
+    public boolean isPostgres() {
+        return POSTGRESQL.equals(name());
+    }
+}
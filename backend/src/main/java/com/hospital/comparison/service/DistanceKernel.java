@@ -0,0 +1,94 @@
+package com.hospital.comparison.service;
+
+/**
+ * Batch great-circle distances over contiguous latitude/longitude arrays.
+ *
+ * The loops work on primitive arrays with no allocation or boxing so the JIT can
+ * unroll them and keep the reference point's terms in registers. The optional
+ * prefilter rejects points outside the radius using only the latitude difference
+ * and a polynomial lower bound on the longitude term, so trig is only evaluated
+ * for points that may be inside the circle. The prefilter never rejects a point
+ * that is inside the radius.
+ */
+public final class DistanceKernel {
+
+    private DistanceKernel() {
+    }
+
+    /**
+     * Collect the points within radiusKm of the reference point. Their indexes go to hitIndexes
+     * and their distances to hitDistances, in input order; the number of hits is returned.
+     * Both output arrays must hold at least count elements.
+     */
+    public static int withinRadius(double refLat, double refLon, double[] latitudes, double[] longitudes,
+            int count, double radiusKm, boolean prefilter, int[] hitIndexes, double[] hitDistances) {
+        double refLatRad = Math.toRadians(refLat);
+        double refLonRad = Math.toRadians(refLon);
+        double cosRef = Math.cos(refLatRad);
+
+        int candidates = count;
+        if (prefilter) {
+            candidates = prefilter(refLatRad, refLonRad, latitudes, longitudes, count, radiusKm, hitIndexes);
+        } else {
+            for (int i = 0; i < count; i++) {
+                hitIndexes[i] = i;
+            }
+        }
+
+        int hits = 0;
+        for (int j = 0; j < candidates; j++) {
+            int i = hitIndexes[j];
+            double distance = haversine(refLatRad, refLonRad, cosRef,
+                    Math.toRadians(latitudes[i]), Math.toRadians(longitudes[i]));
+            if (distance <= radiusKm) {
+                hitIndexes[hits] = i;
+                hitDistances[hits] = distance;
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Write the indexes of the points that may be within the radius to candidates.
+     * Uses d >= |dLat| and sin(d/2) >= cos(maxLat) * sin(dLon/2) with sin(t) >= t - t^3/6.
+     */
+    private static int prefilter(double refLatRad, double refLonRad, double[] latitudes, double[] longitudes,
+            int count, double radiusKm, int[] candidates) {
+        double angle = radiusKm / GeoMath.EARTH_RADIUS_KM;
+        if (angle >= Math.PI) {
+            // The circle covers the whole sphere
+            for (int i = 0; i < count; i++) {
+                candidates[i] = i;
+            }
+            return count;
+        }
+
+        double sinHalfAngle = Math.sin(angle / 2);
+        // Every point passing the latitude test lies at most this far from the equator
+        double cosMaxLat = Math.cos(Math.min(Math.PI / 2, Math.abs(refLatRad) + angle));
+
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            double dLat = Math.abs(Math.toRadians(latitudes[i]) - refLatRad);
+            double dLon = Math.abs(Math.toRadians(longitudes[i]) - refLonRad);
+            if (dLon > Math.PI) dLon = 2 * Math.PI - dLon;
+
+            double t = dLon / 2;
+            double lonTerm = cosMaxLat * (t - t * t * t / 6);
+            // Written as negations so NaN coordinates are rejected
+            if (!(dLat <= angle) || !(lonTerm <= sinHalfAngle)) continue;
+
+            candidates[n++] = i;
+        }
+        return n;
+    }
+
+    private static double haversine(double lat1, double lon1, double cosLat1, double lat2, double lon2) {
+        double sinHalfLat = Math.sin((lat2 - lat1) / 2);
+        double sinHalfLon = Math.sin((lon2 - lon1) / 2);
+        double a = sinHalfLat * sinHalfLat + cosLat1 * Math.cos(lat2) * sinHalfLon * sinHalfLon;
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(Math.max(0, 1 - a)));
+        return GeoMath.EARTH_RADIUS_KM * c;
+    }
+}
@@ -0,0 +1,206 @@
+package com.hospital.comparison.service;
+
+import java.util.*;
+
+/**
+ * In-memory fuzzy matcher over the names in a {@link Gazetteer}, used when the
+ * exact lookup misses on a spelling variation ("Sangvi" for "New Sangvi",
+ * "Pimpri Chinchwad" for "Pimpri-Chinchwad").
+ *
+ * Names are normalized (lower-cased, punctuation folded to spaces, whitespace
+ * collapsed) and indexed by character trigram. A query only scores the areas
+ * that share a trigram with it, by normalized edit distance, or by word
+ * containment when every query word is a word of the area name and at least
+ * one of them is distinctive (used by few area names, unlike "road" or
+ * "nagar"). Containment is weighted by how much of the name the query covers.
+ * The best candidate is accepted when its similarity reaches minSimilarity.
+ *
+ * Built once per gazetteer version and immutable afterwards, so it is safe to
+ * share between threads.
+ */
+final class FuzzyAreaMatcher {
+
+    // A word in more area names than this is too common to identify an area
+    static final int MAX_DISTINCTIVE_WORD_AREAS = 3;
+
+    private final Gazetteer gazetteer;
+    private final double minSimilarity;
+    private final Map<String, Integer> citiesByName = new HashMap<>();
+    private final String[] cityNames;
+    private final String[] areaNames;
+    private final Map<String, int[]> areasByTrigram;
+    private final Map<String, Integer> areaCountByWord = new HashMap<>();
+
+    FuzzyAreaMatcher(Gazetteer gazetteer, double minSimilarity) {
+        this.gazetteer = gazetteer;
+        this.minSimilarity = minSimilarity;
+
+        cityNames = new String[gazetteer.cityCount()];
+        for (int city = 0; city < cityNames.length; city++) {
+            cityNames[city] = normalize(gazetteer.cityKey(city));
+            citiesByName.putIfAbsent(cityNames[city], city);
+        }
+
+        areaNames = new String[gazetteer.size()];
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int area = 0; area < areaNames.length; area++) {
+            areaNames[area] = normalize(gazetteer.areaKey(area));
+            for (String trigram : trigrams(areaNames[area])) {
+                postings.computeIfAbsent(trigram, k -> new ArrayList<>()).add(area);
+            }
+            for (String word : new HashSet<>(Arrays.asList(areaNames[area].split(" ")))) {
+                areaCountByWord.merge(word, 1, Integer::sum);
+            }
+        }
+        areasByTrigram = new HashMap<>(postings.size() * 2);
+        for (Map.Entry<String, List<Integer>> posting : postings.entrySet()) {
+            areasByTrigram.put(posting.getKey(), posting.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    Gazetteer gazetteer() {
+        return gazetteer;
+    }
+
+    /**
+     * Area number of the best fuzzy match for the city and area name, or -1
+     */
+    int match(String city, String area) {
+        int cityIndex = matchCity(normalize(city));
+        if (cityIndex < 0) return -1;
+
+        String query = normalize(area);
+        if (query.isEmpty()) return -1;
+
+        int first = gazetteer.cityFirstArea(cityIndex);
+        int last = first + gazetteer.cityAreaCount(cityIndex);
+        BitSet candidates = new BitSet(last - first);
+        for (String trigram : trigrams(query)) {
+            int[] areas = areasByTrigram.get(trigram);
+            if (areas == null) continue;
+            for (int candidate : areas) {
+                if (candidate >= first && candidate < last) {
+                    candidates.set(candidate - first);
+                }
+            }
+        }
+
+        int best = -1;
+        double bestSimilarity = minSimilarity;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            int candidate = first + i;
+            double similarity = similarity(query, areaNames[candidate]);
+            // Candidates come in area order, so ties keep the lower area number
+            if (similarity > bestSimilarity || (similarity == bestSimilarity && best < 0)) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+        return best;
+    }
+
+    private int matchCity(String city) {
+        Integer exact = citiesByName.get(city);
+        if (exact != null) return exact;
+        if (city.isEmpty()) return -1;
+
+        // Few cities, so scan them all
+        int best = -1;
+        double bestSimilarity = minSimilarity;
+        for (int i = 0; i < cityNames.length; i++) {
+            double similarity = editSimilarity(city, cityNames[i]);
+            if (similarity > bestSimilarity || (similarity == bestSimilarity && best < 0)) {
+                best = i;
+                bestSimilarity = similarity;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lower-case, fold everything but letters and digits to single spaces, trim
+     */
+    static String normalize(String name) {
+        if (name == null) return "";
+
+        StringBuilder out = new StringBuilder(name.length());
+        boolean space = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && out.length() > 0) out.append(' ');
+                out.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Best of edit similarity and word containment ("sangvi" in "new sangvi")
+     */
+    double similarity(String query, String name) {
+        double similarity = editSimilarity(query, name);
+        if (containsAllWords(name, query) && hasDistinctiveWord(query)) {
+            // Weighted by coverage so "new sangvi" beats "new sangvi phase 2" for "sangvi",
+            // and a short word lost in a long name stays below the usual threshold
+            similarity = Math.max(similarity, 0.6 + 0.4 * query.length() / name.length());
+        }
+        return similarity;
+    }
+
+    private boolean hasDistinctiveWord(String query) {
+        for (String word : query.split(" ")) {
+            if (areaCountByWord.getOrDefault(word, 0) <= MAX_DISTINCTIVE_WORD_AREAS) return true;
+        }
+        return false;
+    }
+
+    static double editSimilarity(String a, String b) {
+        int longest = Math.max(a.length(), b.length());
+        if (longest == 0) return 1.0;
+        return 1.0 - (double) levenshtein(a, b) / longest;
+    }
+
+    static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static boolean containsAllWords(String name, String query) {
+        List<String> words = Arrays.asList(name.split(" "));
+        for (String word : query.split(" ")) {
+            if (!words.contains(word)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Trigrams of the name padded with a space on both sides, so short names and
+     * word boundaries still produce grams
+     */
+    private static Set<String> trigrams(String name) {
+        String padded = " " + name + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,260 @@
+package com.hospital.comparison.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of a compiled gazetteer file, memory-mapped so the data stays
+ * off the heap and lookups read straight from the page cache.
+ *
+ * File layout (big-endian, offsets from the start of the file):
+ * <pre>
+ * header       magic "GAZ1", cityCount, entryCount, cityTableOffset, entryTableOffset,
+ *              coordinatesOffset, latitudeIndexOffset, stringsOffset       (8 x int)
+ * city table   per city, sorted by normalized name:
+ *              nameOffset, nameLength, displayOffset, displayLength, firstEntry, entryCount
+ * entry table  per area, grouped by city and sorted by normalized name within it:
+ *              nameOffset, nameLength, displayOffset, displayLength, cityIndex
+ * coordinates  per area: latitude, longitude                               (2 x double)
+ * lat index    area numbers sorted by latitude                             (int)
+ * strings      UTF-8 bytes; normalized names are trimmed and lower-cased
+ * </pre>
+ * Aliases are extra city records that share another city's entry range.
+ * Name and nearest lookups do not allocate; only the display-name accessors do.
+ */
+public final class Gazetteer {
+
+    static final int MAGIC = 0x47415A31; // "GAZ1"
+    static final int HEADER_BYTES = 8 * 4;
+    static final int CITY_RECORD_BYTES = 6 * 4;
+    static final int ENTRY_RECORD_BYTES = 5 * 4;
+    static final int COORDINATE_BYTES = 2 * 8;
+
+    private final ByteBuffer buffer;
+    private final int cityCount;
+    private final int entryCount;
+    private final int cityTable;
+    private final int entryTable;
+    private final int coordinates;
+    private final int latitudeIndex;
+    private final int strings;
+
+    private Gazetteer(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a gazetteer file");
+        }
+        this.buffer = buffer;
+        this.cityCount = buffer.getInt(4);
+        this.entryCount = buffer.getInt(8);
+        this.cityTable = buffer.getInt(12);
+        this.entryTable = buffer.getInt(16);
+        this.coordinates = buffer.getInt(20);
+        this.latitudeIndex = buffer.getInt(24);
+        this.strings = buffer.getInt(28);
+    }
+
+    /**
+     * Map the file read-only. The mapping stays valid after the channel is closed.
+     */
+    public static Gazetteer open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Gazetteer(mapped);
+        }
+    }
+
+    /**
+     * View over compiled gazetteer contents already in memory
+     */
+    public static Gazetteer wrap(ByteBuffer contents) {
+        return new Gazetteer(contents.duplicate());
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Area number for the city and area name (case-insensitive, surrounding spaces ignored), or -1
+     */
+    public int findArea(CharSequence city, CharSequence area) {
+        int cityIndex = findCity(city);
+        if (cityIndex < 0) return -1;
+
+        int record = cityTable + cityIndex * CITY_RECORD_BYTES;
+        int low = buffer.getInt(record + 16);
+        int high = low + buffer.getInt(record + 20) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = entryTable + mid * ENTRY_RECORD_BYTES;
+            int comp = compareName(buffer.getInt(entry), buffer.getInt(entry + 4), area);
+            if (comp < 0) {
+                low = mid + 1;
+            } else if (comp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Area whose centroid is nearest to the point within maxDistanceKm, or -1.
+     * Only areas in the latitude band of the radius are examined.
+     */
+    public int findNearest(double latitude, double longitude, double maxDistanceKm) {
+        double dLat = GeoMath.latitudeDegrees(maxDistanceKm);
+        double minLat = latitude - dLat;
+        double maxLat = latitude + dLat;
+
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (latitude(indexedArea(mid)) < minLat) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        int nearest = -1;
+        double nearestDistance = maxDistanceKm;
+        for (int i = low; i < entryCount; i++) {
+            int area = indexedArea(i);
+            double areaLat = latitude(area);
+            if (areaLat > maxLat) break;
+
+            double distance = GeoMath.haversineKm(latitude, longitude, areaLat, longitude(area));
+            if (distance <= nearestDistance && (nearest < 0 || distance < nearestDistance)) {
+                nearest = area;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    public double latitude(int area) {
+        return buffer.getDouble(coordinates + area * COORDINATE_BYTES);
+    }
+
+    public double longitude(int area) {
+        return buffer.getDouble(coordinates + area * COORDINATE_BYTES + 8);
+    }
+
+    /**
+     * Display name of the area
+     */
+    public String areaName(int area) {
+        int entry = entryTable + area * ENTRY_RECORD_BYTES;
+        return string(buffer.getInt(entry + 8), buffer.getInt(entry + 12));
+    }
+
+    /**
+     * Display name of the city the area belongs to (never an alias)
+     */
+    public String cityName(int area) {
+        int record = cityTable + buffer.getInt(entryTable + area * ENTRY_RECORD_BYTES + 16) * CITY_RECORD_BYTES;
+        return string(buffer.getInt(record + 8), buffer.getInt(record + 12));
+    }
+
+    public int cityCount() {
+        return cityCount;
+    }
+
+    /**
+     * Normalized name of the city record (aliases included)
+     */
+    public String cityKey(int city) {
+        int record = cityTable + city * CITY_RECORD_BYTES;
+        return string(buffer.getInt(record), buffer.getInt(record + 4));
+    }
+
+    public int cityFirstArea(int city) {
+        return buffer.getInt(cityTable + city * CITY_RECORD_BYTES + 16);
+    }
+
+    public int cityAreaCount(int city) {
+        return buffer.getInt(cityTable + city * CITY_RECORD_BYTES + 20);
+    }
+
+    /**
+     * Normalized name of the area
+     */
+    public String areaKey(int area) {
+        int entry = entryTable + area * ENTRY_RECORD_BYTES;
+        return string(buffer.getInt(entry), buffer.getInt(entry + 4));
+    }
+
+    private int findCity(CharSequence city) {
+        int low = 0;
+        int high = cityCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = cityTable + mid * CITY_RECORD_BYTES;
+            int comp = compareName(buffer.getInt(record), buffer.getInt(record + 4), city);
+            if (comp < 0) {
+                low = mid + 1;
+            } else if (comp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int indexedArea(int position) {
+        return buffer.getInt(latitudeIndex + position * 4);
+    }
+
+    /**
+     * Compare a stored normalized name with the query, normalizing the query on the fly
+     * (trimmed, lower-cased) and decoding the stored UTF-8 without allocating
+     */
+    private int compareName(int offset, int length, CharSequence query) {
+        int start = 0;
+        int end = query.length();
+        while (start < end && Character.isWhitespace(query.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(query.charAt(end - 1))) end--;
+
+        int pos = strings + offset;
+        int limit = pos + length;
+        int q = start;
+        while (pos < limit && q < end) {
+            int b = buffer.get(pos) & 0xff;
+            char stored;
+            if (b < 0x80) {
+                stored = (char) b;
+                pos += 1;
+            } else if (b < 0xe0) {
+                stored = (char) (((b & 0x1f) << 6) | (buffer.get(pos + 1) & 0x3f));
+                pos += 2;
+            } else {
+                stored = (char) (((b & 0x0f) << 12) | ((buffer.get(pos + 1) & 0x3f) << 6)
+                        | (buffer.get(pos + 2) & 0x3f));
+                pos += 3;
+            }
+
+            char wanted = Character.toLowerCase(query.charAt(q++));
+            if (stored != wanted) {
+                return stored < wanted ? -1 : 1;
+            }
+        }
+        if (pos < limit) return 1;
+        if (q < end) return -1;
+        return 0;
+    }
+
+    private String string(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(strings + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
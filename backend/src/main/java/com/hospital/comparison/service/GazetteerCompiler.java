@@ -0,0 +1,205 @@
+package com.hospital.comparison.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Compiles a gazetteer CSV into the binary format read by {@link Gazetteer}.
+ *
+ * Input lines are {@code city,area,latitude,longitude}; {@code @alias,name,city}
+ * makes another city name resolve to an existing city's areas. Blank lines and
+ * lines starting with # are ignored. A repeated city/area pair keeps the last
+ * coordinates.
+ *
+ * Usage: {@code java -cp <app classpath> com.hospital.comparison.service.GazetteerCompiler areas.csv gazetteer.bin}
+ * The output is written to a temporary file and renamed into place, so a running
+ * instance watching the file never maps a half-written gazetteer.
+ */
+public final class GazetteerCompiler {
+
+    private GazetteerCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: GazetteerCompiler <input.csv> <output.bin>");
+            System.exit(1);
+        }
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            int areas = compile(reader, Paths.get(args[1]));
+            System.out.println("✅ Compiled " + areas + " areas into " + args[1]);
+        }
+    }
+
+    /**
+     * Compile the CSV and atomically replace the output file. Returns the number of areas.
+     */
+    public static int compile(Reader csv, Path output) throws IOException {
+        ByteBuffer compiled = build(csv);
+
+        Path absolute = output.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        Path tmp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            out.write(compiled.array());
+        }
+        Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Gazetteer.wrap(compiled).size();
+    }
+
+    /**
+     * Compile the CSV into the file contents, in a heap buffer
+     */
+    static ByteBuffer build(Reader csv) throws IOException {
+        // Normalized city name -> display name and areas (normalized name -> display name, coordinates)
+        Map<String, String> cityDisplay = new HashMap<>();
+        Map<String, TreeMap<String, Object[]>> areasByCity = new HashMap<>();
+        Map<String, String> aliases = new LinkedHashMap<>();
+
+        BufferedReader reader = new BufferedReader(csv);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] fields = line.split(",", -1);
+            if (fields[0].trim().equals("@alias")) {
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": expected @alias,name,city");
+                }
+                aliases.put(fields[1].trim(), normalize(fields[2]));
+                continue;
+            }
+            if (fields.length != 4) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected city,area,latitude,longitude");
+            }
+
+            String city = normalize(fields[0]);
+            cityDisplay.putIfAbsent(city, fields[0].trim());
+            try {
+                areasByCity.computeIfAbsent(city, k -> new TreeMap<>()).put(normalize(fields[1]), new Object[]{
+                        fields[1].trim(), Double.parseDouble(fields[2].trim()), Double.parseDouble(fields[3].trim())});
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": invalid coordinates");
+            }
+        }
+
+        // Entries are laid out city by city in name order
+        List<String> realCities = new ArrayList<>(areasByCity.keySet());
+        Collections.sort(realCities);
+
+        List<String[]> cities = new ArrayList<>(); // normalized, display, owner (normalized real city)
+        for (String city : realCities) {
+            cities.add(new String[]{city, cityDisplay.get(city), city});
+        }
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            if (!areasByCity.containsKey(alias.getValue())) {
+                throw new IllegalArgumentException("Alias " + alias.getKey() + " points to unknown city");
+            }
+            String name = normalize(alias.getKey());
+            if (!areasByCity.containsKey(name)) {
+                cities.add(new String[]{name, alias.getKey(), alias.getValue()});
+            }
+        }
+        cities.sort(Comparator.comparing((String[] city) -> city[0]));
+
+        Map<String, Integer> firstEntry = new HashMap<>();
+        Map<String, Integer> cityIndex = new HashMap<>();
+        List<String> entryNames = new ArrayList<>();
+        List<String> entryDisplays = new ArrayList<>();
+        List<String> entryCities = new ArrayList<>();
+        List<double[]> entryCoordinates = new ArrayList<>();
+        for (String city : realCities) {
+            firstEntry.put(city, entryNames.size());
+            for (Map.Entry<String, Object[]> area : areasByCity.get(city).entrySet()) {
+                entryNames.add(area.getKey());
+                entryDisplays.add((String) area.getValue()[0]);
+                entryCities.add(city);
+                entryCoordinates.add(new double[]{(Double) area.getValue()[1], (Double) area.getValue()[2]});
+            }
+        }
+        for (int i = 0; i < cities.size(); i++) {
+            if (cities.get(i)[0].equals(cities.get(i)[2])) {
+                cityIndex.put(cities.get(i)[0], i);
+            }
+        }
+
+        int cityCount = cities.size();
+        int entryCount = entryNames.size();
+        Integer[] byLatitude = new Integer[entryCount];
+        for (int i = 0; i < entryCount; i++) byLatitude[i] = i;
+        Arrays.sort(byLatitude, Comparator.comparingDouble((Integer i) -> entryCoordinates.get(i)[0])
+                .thenComparingInt(i -> i));
+
+        StringPool pool = new StringPool();
+        int cityTable = Gazetteer.HEADER_BYTES;
+        int entryTable = cityTable + cityCount * Gazetteer.CITY_RECORD_BYTES;
+        int coordinates = entryTable + entryCount * Gazetteer.ENTRY_RECORD_BYTES;
+        int latitudeIndex = coordinates + entryCount * Gazetteer.COORDINATE_BYTES;
+        int strings = latitudeIndex + entryCount * 4;
+
+        ByteBuffer body = ByteBuffer.allocate(strings);
+        body.putInt(Gazetteer.MAGIC).putInt(cityCount).putInt(entryCount).putInt(cityTable).putInt(entryTable)
+                .putInt(coordinates).putInt(latitudeIndex).putInt(strings);
+
+        for (String[] city : cities) {
+            int[] name = pool.add(city[0]);
+            int[] display = pool.add(city[1]);
+            body.putInt(name[0]).putInt(name[1]).putInt(display[0]).putInt(display[1])
+                    .putInt(firstEntry.get(city[2])).putInt(areasByCity.get(city[2]).size());
+        }
+        for (int i = 0; i < entryCount; i++) {
+            int[] name = pool.add(entryNames.get(i));
+            int[] display = pool.add(entryDisplays.get(i));
+            body.putInt(name[0]).putInt(name[1]).putInt(display[0]).putInt(display[1])
+                    .putInt(cityIndex.get(entryCities.get(i)));
+        }
+        for (double[] coordinate : entryCoordinates) {
+            body.putDouble(coordinate[0]).putDouble(coordinate[1]);
+        }
+        for (Integer area : byLatitude) {
+            body.putInt(area);
+        }
+
+        byte[] stringBytes = pool.bytes();
+        return ByteBuffer.allocate(strings + stringBytes.length).put(body.array()).put(stringBytes).flip();
+    }
+
+    static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Deduplicated UTF-8 string block; add returns (offset, length)
+     */
+    private static final class StringPool {
+        private final Map<String, int[]> offsets = new HashMap<>();
+        private final java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+
+        int[] add(String value) {
+            return offsets.computeIfAbsent(value, v -> {
+                byte[] bytes = v.getBytes(StandardCharsets.UTF_8);
+                int[] location = {out.size(), bytes.length};
+                out.write(bytes, 0, bytes.length);
+                return location;
+            });
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+    }
+}
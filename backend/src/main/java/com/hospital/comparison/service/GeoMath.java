@@ -0,0 +1,106 @@
+package com.hospital.comparison.service;
+
+import java.util.Locale;
+
+/**
+ * Plain spherical geometry helpers shared by the search and geocoding code.
+ */
+public final class GeoMath {
+
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    // Length of one degree of latitude (and of longitude at the equator)
+    public static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    private GeoMath() {
+    }
+
+    /**
+     * Great-circle distance between two points in kilometres (Haversine formula)
+     */
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(Math.max(0, 1 - a)));
+        return EARTH_RADIUS_KM * c;
+    }
+
+    /**
+     * Degrees of latitude covered by the given distance
+     */
+    public static double latitudeDegrees(double km) {
+        return km / KM_PER_DEGREE;
+    }
+
+    /**
+     * Degrees of longitude covered by the given distance at the given latitude
+     */
+    public static double longitudeDegrees(double km, double atLatitude) {
+        double cos = Math.max(0.01, Math.cos(Math.toRadians(atLatitude)));
+        return km / (KM_PER_DEGREE * cos);
+    }
+
+    private static final char[] GEOHASH_BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /**
+     * Geohash of the point with the given number of characters (6 is about 1.2 x 0.6 km,
+     * 7 about 150 x 150 m). Points in the same cell share the hash.
+     */
+    public static String geohash(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean lonBit = true;
+        int bits = 0;
+        int value = 0;
+
+        while (hash.length() < precision) {
+            if (lonBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    value = (value << 1) | 1;
+                    minLon = mid;
+                } else {
+                    value <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    value = (value << 1) | 1;
+                    minLat = mid;
+                } else {
+                    value <<= 1;
+                    maxLat = mid;
+                }
+            }
+            lonBit = !lonBit;
+
+            if (++bits == 5) {
+                hash.append(GEOHASH_BASE32[value]);
+                bits = 0;
+                value = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * WKT polygon (long-lat axis order) for the bounding box of a circle, used
+     * as the MBR prefilter of the spatial radius queries
+     */
+    public static String boundingBoxWkt(double latitude, double longitude, double radiusKm) {
+        double dLat = latitudeDegrees(radiusKm);
+        double dLon = longitudeDegrees(radiusKm, latitude);
+        double minLat = Math.max(-90, latitude - dLat);
+        double maxLat = Math.min(90, latitude + dLat);
+        double minLon = Math.max(-180, longitude - dLon);
+        double maxLon = Math.min(180, longitude + dLon);
+
+        return String.format(Locale.ROOT, "POLYGON((%.7f %.7f, %.7f %.7f, %.7f %.7f, %.7f %.7f, %.7f %.7f))",
+                minLon, minLat, maxLon, minLat, maxLon, maxLat, minLon, maxLat, minLon, minLat);
+    }
+}
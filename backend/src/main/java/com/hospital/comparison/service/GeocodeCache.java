@@ -0,0 +1,350 @@
+package com.hospital.comparison.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Persistent cache of Nominatim answers, so a restarted instance serves every
+ * previously seen place without HTTP calls. Forward searches are keyed by the
+ * normalized query ("search:"), reverse lookups by geohash cell ("reverse:",
+ * see {@link ReverseGeocodeCache}).
+ *
+ * Entries live in memory and are appended to a JSON-lines log on disk; on
+ * startup the log is replayed (last line per key wins). The log is compacted,
+ * at startup and while running, once it holds mostly superseded, expired or
+ * evicted lines. "Not found" answers are cached too, with a shorter TTL, so
+ * unknown areas do not hit the rate-limited API on every search. Failed HTTP
+ * calls are never cached.
+ *
+ * Keys come from user input, so memory is bounded by max-entries: the least
+ * recently used entry is evicted to make room for a new one.
+ */
+@Service
+public class GeocodeCache {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${geocoding.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${geocoding.cache.file:data/geocode-cache.jsonl}")
+    private String file;
+
+    @Value("${geocoding.cache.ttl-hours:720}")
+    private long ttlHours;
+
+    @Value("${geocoding.cache.negative-ttl-hours:6}")
+    private long negativeTtlHours;
+
+    @Value("${geocoding.cache.max-entries:50000}")
+    private int maxEntries;
+
+    // Access-ordered, so the eldest entry is the least recently used; guarded by itself
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GeocodeCache.Entry> eldest) {
+            if (size() <= maxEntries) return false;
+            if (evictions != null) evictions.increment();
+            return true;
+        }
+    };
+    private Path path;
+    private BufferedWriter writer;
+    private long logLines = 0;
+
+    private Counter hits;
+    private Counter negativeHits;
+    private Counter misses;
+    private Counter evictions;
+
+    @PostConstruct
+    void init() {
+        hits = Counter.builder("geocoding.cache.requests").tag("result", "hit").register(meterRegistry);
+        negativeHits = Counter.builder("geocoding.cache.requests").tag("result", "negative-hit").register(meterRegistry);
+        misses = Counter.builder("geocoding.cache.requests").tag("result", "miss").register(meterRegistry);
+        evictions = Counter.builder("geocoding.cache.evictions").register(meterRegistry);
+        Gauge.builder("geocoding.cache.size", this, GeocodeCache::size).register(meterRegistry);
+
+        if (!enabled) return;
+
+        path = Paths.get(file);
+        try {
+            load();
+            if (needsCompaction()) {
+                compact();
+            }
+            openWriter();
+            System.out.println("✅ Geocode cache loaded " + size() + " entries from " + path.toAbsolutePath());
+        } catch (IOException e) {
+            // The in-memory cache still works, it just does not survive a restart
+            System.err.println("❌ Geocode cache file unavailable (" + path + "): " + e.getMessage());
+            writer = null;
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close geocode cache file: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Cache key of a forward search query
+     */
+    public static String searchKey(String query) {
+        return "search:" + normalize(query);
+    }
+
+    /**
+     * Cache key of a reverse lookup cell
+     */
+    public static String reverseKey(String cell) {
+        return "reverse:" + cell;
+    }
+
+    /**
+     * Unexpired entry for the key, or null on a miss. A returned entry may be negative.
+     */
+    public Entry get(String key) {
+        if (!enabled) return null;
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.getExpiresAt() <= System.currentTimeMillis()) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isNegative()) {
+            negativeHits.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Whether an unexpired entry (match or negative) exists, without counting a hit or miss
+     */
+    public boolean contains(String key) {
+        if (!enabled) return false;
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return entry != null && entry.getExpiresAt() > System.currentTimeMillis();
+    }
+
+    /**
+     * Store a forward search match with its Nominatim importance and bounding box size
+     */
+    public Entry putMatch(String key, double latitude, double longitude, Double importance, Double extentKm) {
+        Entry entry = new Entry(key, latitude, longitude, importance, extentKm, expiry(false));
+        put(entry);
+        return entry;
+    }
+
+    /**
+     * Record that a forward search has no match
+     */
+    public void putNotFound(String key) {
+        put(new Entry(key, null, null, null, null, expiry(true)));
+    }
+
+    /**
+     * Store the city and area answered for a reverse lookup key, kept for ttlMillis
+     */
+    public Entry putPlace(String key, String city, String area, long ttlMillis) {
+        Entry entry = new Entry(key, null, null, null, null, System.currentTimeMillis() + ttlMillis,
+                city != null ? city : "", area != null ? area : "");
+        put(entry);
+        return entry;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void put(Entry entry) {
+        if (!enabled) return;
+
+        synchronized (entries) {
+            entries.put(entry.getKey(), entry);
+        }
+        append(entry);
+    }
+
+    private long expiry(boolean negative) {
+        long hours = negative ? negativeTtlHours : ttlHours;
+        return System.currentTimeMillis() + hours * 3_600_000L;
+    }
+
+    private synchronized void append(Entry entry) {
+        if (writer == null) return;
+
+        try {
+            writer.write(objectMapper.writeValueAsString(entry));
+            writer.newLine();
+            writer.flush();
+            logLines++;
+        } catch (IOException e) {
+            System.err.println("Failed to write geocode cache entry: " + e.getMessage());
+            return;
+        }
+
+        if (needsCompaction()) {
+            try {
+                writer.close();
+                compact();
+                openWriter();
+            } catch (IOException e) {
+                // Keep serving from memory; the log is replayed as it is on the next start
+                System.err.println("❌ Geocode cache compaction failed: " + e.getMessage());
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * Whether the log holds more than twice as many lines as there are live entries
+     */
+    private boolean needsCompaction() {
+        return logLines > 2L * size() + 100;
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(path)) return;
+
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                logLines++;
+                try {
+                    Entry entry = objectMapper.readValue(line, Entry.class);
+                    synchronized (entries) {
+                        if (entry.getExpiresAt() > now) {
+                            entries.put(entry.getKey(), entry);
+                        } else {
+                            entries.remove(entry.getKey());
+                        }
+                    }
+                } catch (IOException e) {
+                    // A torn last line from a crash; everything before it is still valid
+                    System.err.println("Skipping unreadable geocode cache line: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrite the log with only the live entries, least recently used first so a
+     * replay keeps the same order, atomically replacing the old file
+     */
+    private synchronized void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        List<Entry> live;
+        synchronized (entries) {
+            live = new ArrayList<>(entries.values());
+        }
+        live.removeIf(entry -> entry.getExpiresAt() <= now);
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Entry entry : live) {
+                out.write(objectMapper.writeValueAsString(entry));
+                out.newLine();
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logLines = live.size();
+    }
+
+    private void openWriter() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Entry {
+        private String key;
+        private Double latitude;
+        private Double longitude;
+        private Double importance; // Nominatim importance, 0..1
+        private Double extentKm;   // diagonal of the match's bounding box
+        private long expiresAt;
+        private String city;       // reverse lookups only
+        private String area;
+
+        public Entry(String key, Double latitude, Double longitude, Double importance, Double extentKm,
+                long expiresAt) {
+            this(key, latitude, longitude, importance, extentKm, expiresAt, null, null);
+        }
+
+        @JsonIgnore
+        public boolean isNegative() {
+            return (latitude == null || longitude == null) && city == null;
+        }
+
+        public double[] coordinates() {
+            return latitude != null && longitude != null ? new double[] { latitude, longitude } : null;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.entity.Hospital;
+import com.hospital.comparison.repository.HospitalRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background job that resolves geocoding lookups before users need them.
+ *
+ * Known areas are already answered by the local gazetteer, so the job warms what
+ * still goes to Nominatim: the city-center lookups searches fall back to (every
+ * gazetteer city and every hospital city), then the addresses of hospitals stored
+ * without coordinates, whose coordinates are written back to the hospital row.
+ * City answers are persisted by {@link GeocodeCache}; hospital addresses are
+ * looked up once and not cached. The coordinates of a batch are saved in one
+ * transaction with catalog snapshot rebuilds suspended, so a batch costs one
+ * snapshot rebuild instead of one per hospital.
+ *
+ * Runs shortly after startup and then on a fixed delay. Lookups go through
+ * GeocodingService, so the shared rate limiter and circuit breaker apply; after
+ * every lookup that reached Nominatim the job pauses to leave most of the upstream
+ * budget to live searches. Progress is checkpointed to a file after every city and
+ * every saved batch, so a run cut short by a restart or an open breaker resumes
+ * where it stopped.
+ */
+@Service
+public class GeocodePrewarmJob {
+
+    private static final String PHASE_CITIES = "cities";
+    private static final String PHASE_HOSPITALS = "hospitals";
+
+    @Autowired
+    private GeocodingService geocodingService;
+
+    @Autowired
+    private GeocodeCache geocodeCache;
+
+    @Autowired
+    private GeocoderCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private AreaCoordinatesService areaCoordinatesService;
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${geocoding.prewarm.enabled:true}")
+    private boolean enabled;
+
+    @Value("${geocoding.prewarm.checkpoint-file:data/geocode-prewarm.checkpoint}")
+    private String checkpointFile;
+
+    @Value("${geocoding.prewarm.pause-ms:2000}")
+    private long pauseMillis;
+
+    @Value("${geocoding.prewarm.batch-size:100}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+
+    private Counter citiesResolved;
+    private Counter citiesUnresolved;
+    private Counter hospitalsResolved;
+    private Counter hospitalsUnresolved;
+
+    @PostConstruct
+    void init() {
+        citiesResolved = Counter.builder("geocoding.prewarm.items").tag("kind", "city").tag("result", "resolved")
+                .register(meterRegistry);
+        citiesUnresolved = Counter.builder("geocoding.prewarm.items").tag("kind", "city").tag("result", "unresolved")
+                .register(meterRegistry);
+        hospitalsResolved = Counter.builder("geocoding.prewarm.items").tag("kind", "hospital").tag("result", "resolved")
+                .register(meterRegistry);
+        hospitalsUnresolved = Counter.builder("geocoding.prewarm.items").tag("kind", "hospital")
+                .tag("result", "unresolved").register(meterRegistry);
+        Gauge.builder("geocoding.prewarm.total", total, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("geocoding.prewarm.processed", processed, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("geocoding.prewarm.running", running, r -> r.get() ? 1 : 0).register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${geocoding.prewarm.initial-delay-ms:30000}",
+            fixedDelayString = "${geocoding.prewarm.interval-ms:86400000}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    /**
+     * One pass over cities and hospitals without coordinates, resuming from the checkpoint.
+     * Returns false when the pass stopped early and will resume on the next run.
+     */
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) {
+            System.out.println("Geocode pre-warm already running, skipping");
+            return false;
+        }
+
+        Path checkpointPath = Paths.get(checkpointFile);
+        try {
+            Properties checkpoint = readCheckpoint(checkpointPath);
+            String phase = checkpoint.getProperty("phase", PHASE_CITIES);
+            long position = Long.parseLong(checkpoint.getProperty("position", "0"));
+
+            List<String> cities = citiesToWarm();
+            total.set(cities.size() + hospitalRepository.countMissingCoordinates());
+            processed.set(PHASE_CITIES.equals(phase) ? position : cities.size());
+            System.out.println("Geocode pre-warm started: " + total.get() + " items, resuming " + phase + " at " + position);
+
+            if (PHASE_CITIES.equals(phase)) {
+                for (int i = (int) position; i < cities.size(); i++) {
+                    if (stopRequested()) {
+                        return false;
+                    }
+                    if (warm(cities.get(i)) != null) {
+                        citiesResolved.increment();
+                    } else {
+                        citiesUnresolved.increment();
+                    }
+                    writeCheckpoint(checkpointPath, PHASE_CITIES, i + 1);
+                    progress();
+                }
+                phase = PHASE_HOSPITALS;
+                position = 0;
+                writeCheckpoint(checkpointPath, phase, position);
+            }
+
+            List<Hospital> batch;
+            while (!(batch = hospitalRepository.findMissingCoordinatesAfter(position,
+                    PageRequest.of(0, batchSize))).isEmpty()) {
+                Map<Long, double[]> resolved = new LinkedHashMap<>();
+                try {
+                    for (Hospital hospital : batch) {
+                        if (stopRequested()) {
+                            return false;
+                        }
+                        double[] coords = geocodingService.getCoordinatesUncached(addressQuery(hospital));
+                        if (pauseMillis > 0) {
+                            Thread.sleep(pauseMillis);
+                        }
+                        if (coords != null) {
+                            resolved.put(hospital.getId(), coords);
+                            hospitalsResolved.increment();
+                        } else {
+                            hospitalsUnresolved.increment();
+                        }
+                        position = hospital.getId();
+                        progress();
+                    }
+                } finally {
+                    // Also on a stop, so the lookups already paid for are kept
+                    saveCoordinates(resolved);
+                    writeCheckpoint(checkpointPath, PHASE_HOSPITALS, position);
+                }
+            }
+
+            // Finished: the next run starts over (unresolved hospitals are retried then)
+            Files.deleteIfExists(checkpointPath);
+            System.out.println("✅ Geocode pre-warm finished: " + processed.get() + " items");
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            System.err.println("❌ Geocode pre-warm failed: " + e.getMessage());
+            return false;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Gazetteer cities (aliases included) and hospital cities, de-duplicated and in a
+     * stable order so a checkpointed position stays meaningful
+     */
+    private List<String> citiesToWarm() {
+        Set<String> cities = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        cities.addAll(areaCoordinatesService.getCityNames());
+        for (String city : hospitalRepository.findDistinctCities()) {
+            if (!city.trim().isEmpty()) {
+                cities.add(city.trim());
+            }
+        }
+        return new ArrayList<>(cities);
+    }
+
+    private String addressQuery(Hospital hospital) {
+        return hospital.getCity() != null && !hospital.getCity().trim().isEmpty()
+                ? hospital.getAddress() + ", " + hospital.getCity().trim()
+                : hospital.getAddress();
+    }
+
+    /**
+     * Resolve a city query, pausing afterwards when it was not already cached
+     */
+    private double[] warm(String query) throws InterruptedException {
+        boolean cached = geocodeCache.contains(GeocodeCache.searchKey(query));
+        double[] coords = geocodingService.getCoordinates(query);
+        if (!cached && pauseMillis > 0) {
+            Thread.sleep(pauseMillis);
+        }
+        return coords;
+    }
+
+    private void saveCoordinates(Map<Long, double[]> resolved) {
+        if (resolved.isEmpty()) return;
+
+        // Saved through JPA so the entity listener updates the spatial index and caches
+        catalogSnapshotService.suspendRebuilds();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Hospital h : hospitalRepository.findAllById(resolved.keySet())) {
+                    if (h.getLatitude() == null || h.getLongitude() == null) {
+                        double[] coords = resolved.get(h.getId());
+                        h.setLatitude(coords[0]);
+                        h.setLongitude(coords[1]);
+                    }
+                }
+            });
+        } finally {
+            catalogSnapshotService.resumeRebuilds();
+        }
+    }
+
+    private boolean stopRequested() {
+        if (circuitBreaker.isOpen()) {
+            System.err.println("❌ Geocoder unavailable, pre-warm paused at " + processed.get() + "/" + total.get());
+            return true;
+        }
+        return Thread.currentThread().isInterrupted();
+    }
+
+    private void progress() {
+        long done = processed.incrementAndGet();
+        if (done % 10 == 0) {
+            System.out.println("Geocode pre-warm progress: " + done + "/" + total.get());
+        }
+    }
+
+    private Properties readCheckpoint(Path path) {
+        Properties checkpoint = new Properties();
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                checkpoint.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("❌ Ignoring unreadable pre-warm checkpoint: " + e.getMessage());
+                checkpoint.clear();
+            }
+        }
+        return checkpoint;
+    }
+
+    private void writeCheckpoint(Path path, String phase, long position) throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("phase", phase);
+        checkpoint.setProperty("position", Long.toString(position));
+
+        Path absolute = path.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        Path tmp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            checkpoint.store(out, "Geocode pre-warm progress");
+        }
+        Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,112 @@
+package com.hospital.comparison.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Circuit breaker around the external geocoder.
+ *
+ * After failureThreshold consecutive failed calls the breaker opens and every
+ * geocoding call fails immediately, so searches drop straight to their city
+ * fallbacks. After openSeconds one trial call is let through (half-open): its
+ * success closes the breaker, its failure opens it again.
+ */
+@Service
+public class GeocoderCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${geocoding.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${geocoding.circuit-breaker.open-seconds:30}")
+    private long openSeconds;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+
+    private Counter rejected;
+    private Counter opened;
+
+    @PostConstruct
+    void init() {
+        rejected = Counter.builder("geocoding.circuit-breaker.rejected").register(meterRegistry);
+        opened = Counter.builder("geocoding.circuit-breaker.opened").register(meterRegistry);
+        // 0 = closed, 1 = open, 2 = half-open
+        Gauge.builder("geocoding.circuit-breaker.state", this, breaker -> breaker.getState().ordinal())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a call may go out now. Every permitted call must be followed by
+     * recordSuccess or recordFailure.
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openSeconds * 1000) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (!trialInFlight) {
+                    trialInFlight = true;
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Cheap check for callers that can skip work entirely while the geocoder is down
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.currentTimeMillis() - openedAt < openSeconds * 1000;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            System.out.println("✅ Geocoder circuit breaker closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                opened.increment();
+                System.err.println("❌ Geocoder circuit breaker opened after " + consecutiveFailures + " failures");
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -1,12 +1,21 @@
 package com.hospital.comparison.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 @Service
 public class GeocodingService {
@@ -14,141 +23,386 @@ public class GeocodingService {
     @Autowired
     private RestTemplate restTemplate;
 
-    private static final String REVERSE_URL = "https://nominatim.openstreetmap.org/reverse";
-    private static final String NOMINATIM_URL = "https://nominatim.openstreetmap.org/search";
+    @Autowired
+    private GeocodeCache geocodeCache;
 
-    public Map<String, String> reverseGeocode(double lat, double lon) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(REVERSE_URL)
-                    .queryParam("lat", lat)
-                    .queryParam("lon", lon)
-                    .queryParam("format", "json")
-                    .queryParam("addressdetails", 1)
-                    .toUriString();
-
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.set("User-Agent", "HospitalComparisonApp/1.0");
-            org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(headers);
-
-            org.springframework.http.ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                    url,
-                    org.springframework.http.HttpMethod.GET,
-                    entity,
-                    new org.springframework.core.ParameterizedTypeReference<Map<String, Object>>() {
-                    });
+    @Autowired
+    private NominatimRateLimiter rateLimiter;
+
+    @Autowired
+    private GeocoderCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private AreaCoordinatesService areaCoordinatesService;
+
+    @Autowired
+    private ReverseGeocodeCache reverseGeocodeCache;
+
+    @Value("${geocoding.reverse.offline-max-distance-km:2.0}")
+    private double offlineReverseMaxDistanceKm;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Lookups currently waiting on Nominatim, by cache key; identical lookups join the same call
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private Counter coalesced;
+    private Counter offlineReverseHits;
+    private Counter offlineReverseMisses;
+
+    @Autowired
+    @Qualifier("geocodingExecutor")
+    private Executor geocodingExecutor;
+
+    @Value("${geocoding.area.deadline-ms:4000}")
+    private long areaDeadlineMillis;
 
-            Map<String, Object> body = response.getBody();
-            if (body != null && body.containsKey("address")) {
-                Map<String, Object> address = (Map<String, Object>) body.get("address");
+    @Value("${geocoding.area.min-importance:0.3}")
+    private double minImportance;
 
-                Object cityObj = address.getOrDefault("city",
-                        address.getOrDefault("town",
-                                address.getOrDefault("village", "")));
-                String city = cityObj != null ? cityObj.toString() : "";
+    @Value("${geocoding.area.max-extent-km:25}")
+    private double maxAreaExtentKm;
 
-                Object areaObj = address.getOrDefault("suburb",
-                        address.getOrDefault("neighbourhood",
-                                address.getOrDefault("residential", "")));
-                String area = areaObj != null ? areaObj.toString() : "";
+    // Overridable so a local Nominatim mirror or a stub server can be used
+    @Value("${geocoding.nominatim.base-url:https://nominatim.openstreetmap.org}")
+    private String nominatimBaseUrl;
+
+    @PostConstruct
+    void init() {
+        coalesced = Counter.builder("geocoding.requests.coalesced").register(meterRegistry);
+        offlineReverseHits = Counter.builder("geocoding.reverse.offline").tag("result", "hit").register(meterRegistry);
+        offlineReverseMisses = Counter.builder("geocoding.reverse.offline").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("geocoding.requests.in-flight", inFlight, Map::size).register(meterRegistry);
+    }
 
-                return Map.of("city", city, "area", area);
+    public Map<String, String> reverseGeocode(double lat, double lon) {
+        // Inside a known area the local gazetteer answers without any network call
+        AreaCoordinatesService.NearestArea nearest = areaCoordinatesService.findNearestArea(lat, lon,
+                offlineReverseMaxDistanceKm);
+        if (nearest != null) {
+            offlineReverseHits.increment();
+            return Map.of("city", nearest.getCity(), "area", nearest.getArea());
+        }
+        offlineReverseMisses.increment();
+
+        // Fixes in the same geohash cell share one answer
+        String cellKey = reverseGeocodeCache.cellKey(lat, lon);
+        ReverseGeocodeCache.Place cached = reverseGeocodeCache.get(cellKey);
+        if (cached != null) {
+            if (reverseGeocodeCache.shouldVerify()) {
+                verifyInBackground(cached, lat, lon);
             }
+            return Map.of("city", cached.getCity(), "area", cached.getArea());
+        }
+
+        try {
+            return singleFlight("reverse:" + cellKey, rateLimiter.getMaxWaitMillis(), () -> {
+                Map<String, String> place = reverseNominatim(lat, lon);
+                reverseGeocodeCache.put(cellKey, place.get("city"), place.get("area"));
+                return place;
+            });
         } catch (Exception e) {
             System.err.println("Reverse geocoding failed for: " + lat + ", " + lon + ". Error: " + e.getMessage());
         }
         return Map.of("city", "", "area", "");
     }
 
-    public double[] getCoordinates(String locationName) {
+    /**
+     * Compare a cached cell answer with the upstream answer for the exact fix, off the request thread
+     */
+    private void verifyInBackground(ReverseGeocodeCache.Place cached, double lat, double lon) {
         try {
-            String url = UriComponentsBuilder.fromHttpUrl(NOMINATIM_URL)
-                    .queryParam("q", locationName)
-                    .queryParam("format", "json")
-                    .queryParam("limit", 1)
-                    .queryParam("addressdetails", 1)
-                    .toUriString();
-
-            // Nominatim requires a User-Agent header
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.set("User-Agent", "HospitalComparisonApp/1.0");
-            org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(headers);
-
-            org.springframework.http.ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
-                    url,
-                    org.springframework.http.HttpMethod.GET,
-                    entity,
-                    new org.springframework.core.ParameterizedTypeReference<List<Map<String, Object>>>() {
-                    });
-
-            List<Map<String, Object>> body = response.getBody();
-            if (body != null && !body.isEmpty()) {
-                Map<String, Object> firstResult = body.get(0);
-                if (firstResult != null && firstResult.containsKey("lat") && firstResult.containsKey("lon")) {
-                    double lat = Double.parseDouble(firstResult.get("lat").toString());
-                    double lon = Double.parseDouble(firstResult.get("lon").toString());
-                    return new double[] { lat, lon };
+            geocodingExecutor.execute(() -> {
+                try {
+                    Map<String, String> exact = reverseNominatim(lat, lon);
+                    reverseGeocodeCache.recordVerification(cached, exact.get("city"), exact.get("area"));
+                } catch (Exception e) {
+                    // Skipped samples (rate limit, breaker open) are simply not counted
                 }
-            }
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool busy with real work; drop the sample
+        }
+    }
+
+    public double[] getCoordinates(String locationName) {
+        try {
+            GeocodeCache.Entry match = lookup(locationName, rateLimiter.getMaxWaitMillis());
+            return match != null ? match.coordinates() : null;
         } catch (Exception e) {
             System.err.println("Geocoding failed for: " + locationName + ". Error: " + e.getMessage());
         }
         return null; // Return null if geocoding fails
     }
 
+    /**
+     * Coordinates for a one-off query (a hospital's street address). The answer is
+     * not stored in the geocode cache, which is kept for queries that repeat.
+     */
+    public double[] getCoordinatesUncached(String query) {
+        try {
+            String key = GeocodeCache.searchKey(query);
+            long maxWaitMillis = rateLimiter.getMaxWaitMillis();
+            GeocodeCache.Entry match = singleFlight(key, maxWaitMillis,
+                    () -> searchNominatim(key, query, maxWaitMillis, false));
+            return match != null ? match.coordinates() : null;
+        } catch (Exception e) {
+            System.err.println("Geocoding failed for: " + query + ". Error: " + e.getMessage());
+        }
+        return null;
+    }
+
     /**
      * NEW: Get coordinates for a specific area within a city
      * This is used to get the center point for radius-based search
+     *
+     * The query variants run concurrently under one deadline. A confident match
+     * (high importance, area-sized bounding box) wins immediately and cancels the
+     * rest; otherwise the best ranked match seen before the deadline is used.
      */
     public Double[] getCoordinatesForArea(String city, String area) {
+        // Try multiple search strategies
+        String[] searchQueries = {
+            area + ", " + city,                    // "New Sangvi, Pimpri-Chinchwad"
+            area + ", Maharashtra, India",         // "New Sangvi, Maharashtra, India"
+            area,                                   // Just "New Sangvi"
+            city + ", " + area                     // "Pimpri-Chinchwad, New Sangvi"
+        };
+
+        long deadline = System.currentTimeMillis() + areaDeadlineMillis;
+        ExecutorCompletionService<GeocodeCache.Entry> completion = new ExecutorCompletionService<>(geocodingExecutor);
+        Map<Future<GeocodeCache.Entry>, String> running = new HashMap<>();
+        GeocodeCache.Entry best = null;
+        String bestQuery = null;
+
         try {
-            // Try multiple search strategies
-            String[] searchQueries = {
-                area + ", " + city,                    // "New Sangvi, Pimpri-Chinchwad"
-                area + ", Maharashtra, India",         // "New Sangvi, Maharashtra, India"
-                area,                                   // Just "New Sangvi"
-                city + ", " + area                     // "Pimpri-Chinchwad, New Sangvi"
-            };
-            
             for (String searchQuery : searchQueries) {
-                System.out.println("Trying geocoding query: '" + searchQuery + "'");
-                
-                String url = UriComponentsBuilder.fromHttpUrl(NOMINATIM_URL)
-                        .queryParam("q", searchQuery)
-                        .queryParam("format", "json")
-                        .queryParam("limit", 1)
-                        .queryParam("addressdetails", 1)
-                        .toUriString();
-
-                org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-                headers.set("User-Agent", "HospitalComparisonApp/1.0");
-                org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(headers);
-
-                org.springframework.http.ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
-                        url,
-                        org.springframework.http.HttpMethod.GET,
-                        entity,
-                        new org.springframework.core.ParameterizedTypeReference<List<Map<String, Object>>>() {
-                        });
-
-                List<Map<String, Object>> body = response.getBody();
-                if (body != null && !body.isEmpty()) {
-                    Map<String, Object> firstResult = body.get(0);
-                    if (firstResult != null && firstResult.containsKey("lat") && firstResult.containsKey("lon")) {
-                        double lat = Double.parseDouble(firstResult.get("lat").toString());
-                        double lon = Double.parseDouble(firstResult.get("lon").toString());
-                        
-                        System.out.println("✅ Geocoded area '" + area + ", " + city + "' to: " + lat + ", " + lon + " using query: " + searchQuery);
-                        return new Double[] { lat, lon };
+                // Cached answers are used directly, only misses go to the pool
+                GeocodeCache.Entry cached = geocodeCache.get(GeocodeCache.searchKey(searchQuery));
+                if (cached != null) {
+                    if (!cached.isNegative() && (best == null || score(cached) > score(best))) {
+                        best = cached;
+                        bestQuery = searchQuery;
                     }
+                    continue;
+                }
+                if (circuitBreaker.isOpen()) continue;
+                try {
+                    running.put(completion.submit(() -> lookup(searchQuery, deadline - System.currentTimeMillis())),
+                            searchQuery);
+                } catch (RejectedExecutionException e) {
+                    System.err.println("Geocoding pool full, skipping query: '" + searchQuery + "'");
                 }
             }
-            
-            System.err.println("❌ All geocoding queries failed for area: " + area + ", " + city);
-            
-        } catch (Exception e) {
-            System.err.println("❌ Area geocoding failed for: " + area + ", " + city + ". Error: " + e.getMessage());
-            e.printStackTrace();
+
+            int pending = running.size();
+            while (pending > 0 && !isConfident(best)) {
+                long remaining = deadline - System.currentTimeMillis();
+                Future<GeocodeCache.Entry> done = remaining > 0 ? completion.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                if (done == null) {
+                    System.err.println("Area geocoding deadline reached with " + pending + " queries pending");
+                    break;
+                }
+                pending--;
+
+                try {
+                    GeocodeCache.Entry match = done.get();
+                    if (match != null && (best == null || score(match) > score(best))) {
+                        best = match;
+                        bestQuery = running.get(done);
+                    }
+                } catch (ExecutionException e) {
+                    System.err.println("Geocoding query '" + running.get(done) + "' failed: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.keySet().forEach(future -> future.cancel(true));
         }
+
+        if (best != null) {
+            System.out.println("✅ Geocoded area '" + area + ", " + city + "' to: " + best.getLatitude() + ", "
+                    + best.getLongitude() + " using query: " + bestQuery);
+            return new Double[] { best.getLatitude(), best.getLongitude() };
+        }
+
+        System.err.println("❌ All geocoding queries failed for area: " + area + ", " + city);
         return null; // Return null if geocoding fails
     }
+
+    /**
+     * Rank matches by Nominatim importance; matches covering more than an area
+     * (a whole city or state) rank below any area-sized match
+     */
+    private double score(GeocodeCache.Entry match) {
+        double importance = match.getImportance() != null ? match.getImportance() : 0.0;
+        boolean areaSized = match.getExtentKm() == null || match.getExtentKm() <= maxAreaExtentKm;
+        return areaSized ? 1 + importance : importance;
+    }
+
+    private boolean isConfident(GeocodeCache.Entry match) {
+        return match != null && match.getImportance() != null && match.getImportance() >= minImportance
+                && match.getExtentKm() != null && match.getExtentKm() <= maxAreaExtentKm;
+    }
+
+    /**
+     * Match for a free-text query, from the persistent cache when seen before.
+     * Returns null when Nominatim has no match; HTTP failures are thrown and not cached.
+     */
+    private GeocodeCache.Entry lookup(String query, long maxWaitMillis) {
+        String key = GeocodeCache.searchKey(query);
+        GeocodeCache.Entry cached = geocodeCache.get(key);
+        if (cached != null) {
+            return cached.isNegative() ? null : cached;
+        }
+
+        return singleFlight(key, maxWaitMillis, () -> searchNominatim(key, query, maxWaitMillis, true));
+    }
+
+    /**
+     * Run the loader unless an identical lookup is already in flight, in which case
+     * wait for and share its result (or its failure), for at most maxWaitMillis
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T singleFlight(String key, long maxWaitMillis, Supplier<T> loader) {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return (T) existing.get(Math.max(maxWaitMillis, 0), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                        : new IllegalStateException(e.getCause());
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("Identical geocoding lookup did not finish within the wait budget");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for an identical geocoding lookup");
+            }
+        }
+
+        try {
+            T result = loader.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * One outbound Nominatim call: fails fast while the circuit breaker is open,
+     * waits for a rate limit permit, and reports the outcome to the breaker
+     */
+    private <T> T callNominatim(String url, org.springframework.core.ParameterizedTypeReference<T> responseType,
+            long maxWaitMillis) {
+        if (circuitBreaker.isOpen()) {
+            throw new IllegalStateException("Geocoder circuit breaker is open");
+        }
+        if (maxWaitMillis <= 0 || !rateLimiter.tryAcquire(maxWaitMillis)) {
+            throw new IllegalStateException("Nominatim rate limit: queue full or wait budget exceeded");
+        }
+        // Checked after the permit so a half-open trial is only claimed by a call that goes out
+        if (!circuitBreaker.allowRequest()) {
+            rateLimiter.release();
+            throw new IllegalStateException("Geocoder circuit breaker is open");
+        }
+
+        // Nominatim requires a User-Agent header
+        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
+        headers.set("User-Agent", "HospitalComparisonApp/1.0");
+        org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(headers);
+
+        try {
+            org.springframework.http.ResponseEntity<T> response = restTemplate.exchange(
+                    url,
+                    org.springframework.http.HttpMethod.GET,
+                    entity,
+                    responseType);
+            circuitBreaker.recordSuccess();
+            return response.getBody();
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            throw e;
+        }
+    }
+
+    private GeocodeCache.Entry searchNominatim(String key, String query, long maxWaitMillis, boolean store) {
+        String url = UriComponentsBuilder.fromHttpUrl(nominatimBaseUrl + "/search")
+                .queryParam("q", query)
+                .queryParam("format", "json")
+                .queryParam("limit", 1)
+                .queryParam("addressdetails", 1)
+                .toUriString();
+
+        List<Map<String, Object>> body = callNominatim(url,
+                new org.springframework.core.ParameterizedTypeReference<List<Map<String, Object>>>() {
+                }, maxWaitMillis);
+        if (body != null && !body.isEmpty()) {
+            Map<String, Object> firstResult = body.get(0);
+            if (firstResult != null && firstResult.containsKey("lat") && firstResult.containsKey("lon")) {
+                double lat = Double.parseDouble(firstResult.get("lat").toString());
+                double lon = Double.parseDouble(firstResult.get("lon").toString());
+                Double importance = firstResult.get("importance") != null
+                        ? Double.valueOf(firstResult.get("importance").toString()) : null;
+                Double extentKm = extentKm(firstResult.get("boundingbox"));
+                return store ? geocodeCache.putMatch(key, lat, lon, importance, extentKm)
+                        : new GeocodeCache.Entry(key, lat, lon, importance, extentKm, 0L);
+            }
+        }
+        if (store) {
+            geocodeCache.putNotFound(key);
+        }
+        return null;
+    }
+
+    /**
+     * Diagonal in km of a Nominatim bounding box [minLat, maxLat, minLon, maxLon], or null
+     */
+    private static Double extentKm(Object boundingBox) {
+        if (!(boundingBox instanceof List) || ((List<?>) boundingBox).size() != 4) return null;
+
+        List<?> box = (List<?>) boundingBox;
+        try {
+            return GeoMath.haversineKm(Double.parseDouble(box.get(0).toString()), Double.parseDouble(box.get(2).toString()),
+                    Double.parseDouble(box.get(1).toString()), Double.parseDouble(box.get(3).toString()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Map<String, String> reverseNominatim(double lat, double lon) {
+        String url = UriComponentsBuilder.fromHttpUrl(nominatimBaseUrl + "/reverse")
+                .queryParam("lat", lat)
+                .queryParam("lon", lon)
+                .queryParam("format", "json")
+                .queryParam("addressdetails", 1)
+                .toUriString();
+
+        Map<String, Object> body = callNominatim(url,
+                new org.springframework.core.ParameterizedTypeReference<Map<String, Object>>() {
+                }, rateLimiter.getMaxWaitMillis());
+        if (body != null && body.containsKey("address")) {
+            Map<String, Object> address = (Map<String, Object>) body.get("address");
+
+            Object cityObj = address.getOrDefault("city",
+                    address.getOrDefault("town",
+                            address.getOrDefault("village", "")));
+            String city = cityObj != null ? cityObj.toString() : "";
+
+            Object areaObj = address.getOrDefault("suburb",
+                    address.getOrDefault("neighbourhood",
+                            address.getOrDefault("residential", "")));
+            String area = areaObj != null ? areaObj.toString() : "";
+
+            return Map.of("city", city, "area", area);
+        }
+        return Map.of("city", "", "area", "");
+    }
 }
@@ -1,16 +1,29 @@
 package com.hospital.comparison.service;
 
 import com.hospital.comparison.dto.HospitalSearchDTO;
+import com.hospital.comparison.dto.HospitalSearchPageDTO;
 import com.hospital.comparison.entity.Hospital;
+import com.hospital.comparison.entity.HospitalRatingStats;
 import com.hospital.comparison.entity.HospitalService;
+import com.hospital.comparison.repository.HospitalRatingStatsRepository;
 import com.hospital.comparison.repository.HospitalRepository;
 import com.hospital.comparison.repository.HospitalServiceRepository;
-import com.hospital.comparison.repository.ReviewRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongPredicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,7 +37,7 @@ public class HospitalSearchService {
     private HospitalServiceRepository hospitalServiceRepository;
 
     @Autowired
-    private ReviewRepository reviewRepository;
+    private HospitalRatingStatsRepository ratingStatsRepository;
 
     @Autowired
     private GeocodingService geocodingService;
@@ -32,13 +45,110 @@ public class HospitalSearchService {
     @Autowired
     private AreaCoordinatesService areaCoordinatesService;
 
+    @Autowired
+    private HospitalSpatialIndex hospitalSpatialIndex;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private RadiusQueryStrategySelector radiusQueryStrategy;
+
+    @Autowired
+    @Qualifier("searchExecutor")
+    private ThreadPoolTaskExecutor searchExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${search.fanout.enabled:true}")
+    private boolean fanoutEnabled;
+
+    @Value("${search.fanout.deadline-ms:5000}")
+    private long fanoutDeadlineMillis;
+
+    @Value("${search.distance-kernel.prefilter:true}")
+    private boolean distancePrefilter;
+
+    @Value("${search.nearest.max-k:50}")
+    private int nearestMaxK;
+
+    @Value("${search.nearest.max-radius-km:500}")
+    private double nearestMaxRadiusKm;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        // Stages on the search pool run outside the caller's transaction and open their own
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<HospitalSearchDTO> searchHospitals(Long serviceId, Double latitude, Double longitude,
             String city, String area, Double radiusKm) {
+        return searchHospitals(serviceId, latitude, longitude, city, area, radiusKm, true);
+    }
+
+    /**
+     * Search with optional use of the result cache (useCache=false always recomputes, for debugging).
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<HospitalSearchDTO> searchHospitals(Long serviceId, Double latitude, Double longitude,
+            String city, String area, Double radiusKm, boolean useCache) {
+        return searchHospitalsPage(serviceId, latitude, longitude, city, area, radiusKm, useCache, null, null)
+                .getResults();
+    }
+
+    /**
+     * One page of search results. limit=null returns everything; otherwise at most limit
+     * results strictly after the cursor are returned, together with the next page's cursor.
+     * No transaction is opened up front: with a catalog snapshot in place the search never touches JDBC.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public HospitalSearchPageDTO searchHospitalsPage(Long serviceId, Double latitude, Double longitude,
+            String city, String area, Double radiusKm, boolean useCache, Integer limit, String cursor) {
+
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        int pageSize = limit != null ? limit : Integer.MAX_VALUE;
+        SearchRanking.Key after = cursor != null && !cursor.trim().isEmpty()
+                ? SearchRanking.decodeCursor(cursor.trim()) : null;
+
+        if (!useCache || !searchResultCache.isEnabled()) {
+            return runSearch(serviceId, latitude, longitude, city, area, radiusKm, pageSize, after);
+        }
+
+        if (latitude != null && longitude != null && radiusKm != null) {
+            // GPS fixes share the entry of their cell; results are re-filtered for the exact point
+            SearchResultCache.Cell cell = searchResultCache.cellFor(latitude, longitude, radiusKm);
+            String key = searchResultCache.key(serviceId, city, null, radiusKm, cell);
+            List<HospitalSearchDTO> cellResults = searchResultCache.getOrCompute(key, serviceId,
+                    () -> runSearch(serviceId, cell.getLatitude(), cell.getLongitude(), city, area,
+                            cell.getRadiusKm(), Integer.MAX_VALUE, null));
+            return refineToPoint(cellResults, latitude, longitude, radiusKm, pageSize, after);
+        }
+
+        String key = searchResultCache.key(serviceId, city, area, radiusKm, null);
+        List<HospitalSearchDTO> cached = searchResultCache.getOrCompute(key, serviceId,
+                () -> runSearch(serviceId, latitude, longitude, city, area, radiusKm, Integer.MAX_VALUE, null));
+        return page(cached, pageSize, after, this::copyOf);
+    }
+
+    private HospitalSearchPageDTO runSearch(Long serviceId, Double latitude, Double longitude,
+            String city, String area, Double radiusKm, int limit, SearchRanking.Key after) {
 
         System.out.println("Searching hospitals for: City=" + city + ", Area=" + area + 
                           ", Lat=" + latitude + ", Lon=" + longitude + ", Radius=" + radiusKm);
 
         List<HospitalWithDistance> hospitalsWithDistance = new ArrayList<>();
+        // Set when an area search had to fall back to the whole city
+        boolean degraded = false;
 
         try {
             // CASE 1: GPS coordinates provided - use as reference point
@@ -54,6 +164,11 @@ public class HospitalSearchService {
                     
                     // STRATEGY 1: Try database coordinates first
                     areaCoords = areaCoordinatesService.getAreaCoordinates(city, area.trim());
+
+                    if (areaCoords == null && fanoutEnabled) {
+                        // Everything left is remote or database bound: overlap the stages
+                        return searchAreaConcurrently(serviceId, city, area.trim(), radiusKm, limit, after);
+                    }
                     
                     if (areaCoords == null) {
                         // STRATEGY 2: Try geocoding service
@@ -76,12 +191,14 @@ public class HospitalSearchService {
                             System.out.println("❌ City geocoding also failed, falling back to city-only search");
                             // Final fallback: search by city only
                             hospitalsWithDistance = findHospitalsByCityOnly(city);
+                            degraded = true;
                         }
                     }
                 } catch (Exception e) {
                     System.err.println("❌ Area coordinate lookup failed: " + e.getMessage());
                     // Fallback: search by city only
                     hospitalsWithDistance = findHospitalsByCityOnly(city);
+                    degraded = true;
                 }
             }
             // CASE 3: City only search
@@ -92,19 +209,215 @@ public class HospitalSearchService {
 
             if (hospitalsWithDistance.isEmpty()) {
                 System.out.println("No hospitals found");
-                return Collections.emptyList();
+                return new HospitalSearchPageDTO(Collections.emptyList(), null);
             }
 
-            // Filter by service and convert to DTO
-            List<HospitalSearchDTO> results = convertToSearchDTOs(hospitalsWithDistance, serviceId, latitude, longitude);
-            System.out.println("Final results: " + results.size() + " hospitals");
+            // Filter by service, rank and convert to DTO
+            HospitalSearchPageDTO results = convertToSearchDTOs(hospitalsWithDistance, serviceId, limit, after);
+            results.setDegraded(degraded);
+            System.out.println("Final results: " + results.getResults().size() + " hospitals");
             return results;
             
         } catch (Exception e) {
             System.err.println("Error in searchHospitals: " + e.getMessage());
             e.printStackTrace();
-            return Collections.emptyList();
+            return new HospitalSearchPageDTO(Collections.emptyList(), null);
+        }
+    }
+
+    /**
+     * Area search for an area the gazetteer does not know. Geocoding the area (and, if
+     * that fails, the city center) runs next to a prefetch of the service's offerings
+     * and rating stats in the city, all under one deadline of search.fanout.deadline-ms.
+     * Once a reference point is known the prefetched rows are filtered by radius in
+     * memory, so the search takes about as long as the slower of geocoding and the
+     * prefetch rather than their sum. Stages still running when the answer is settled
+     * are cancelled.
+     */
+    private HospitalSearchPageDTO searchAreaConcurrently(Long serviceId, String city, String area,
+            double radiusKm, int limit, SearchRanking.Key after) {
+        long started = System.currentTimeMillis();
+        long deadline = started + fanoutDeadlineMillis;
+        List<Future<?>> stages = new ArrayList<>();
+
+        try {
+            Future<Double[]> areaStage = fork(stages, () -> geocodingService.getCoordinatesForArea(city, area));
+
+            // With a snapshot the offerings are already in memory
+            boolean hasCity = city != null && !city.trim().isEmpty();
+            Future<CityOfferings> offeringsStage = hasCity && catalogSnapshotService.current() == null
+                    ? fork(stages, () -> readOnlyTransaction.execute(status -> loadCityOfferings(serviceId, city.trim())))
+                    : null;
+
+            Double[] center = await(areaStage, deadline, "area geocoding");
+            if ((center == null || center[0] == null || center[1] == null) && System.currentTimeMillis() < deadline) {
+                // Not started up front: it would compete with the area queries for the geocoder's rate limit
+                System.out.println("❌ Area coordinates not found, trying city center coordinates...");
+                double[] cityCenter = await(fork(stages, () -> geocodingService.getCoordinates(city)), deadline,
+                        "city geocoding");
+                center = cityCenter != null && cityCenter.length >= 2
+                        ? new Double[]{cityCenter[0], cityCenter[1]} : null;
+            }
+
+            CityOfferings offerings = await(offeringsStage, deadline, "offerings prefetch");
+            HospitalSearchPageDTO results;
+            if (center == null) {
+                System.out.println("❌ City geocoding also failed, falling back to city-only search");
+                results = offerings != null
+                        ? pageCityOfferings(offerings, null, 0, limit, after)
+                        : convertToSearchDTOs(findHospitalsByCityOnly(city), serviceId, limit, after);
+                results.setDegraded(true);
+            } else {
+                System.out.println("✅ Using coordinates: " + center[0] + ", " + center[1]);
+                results = offerings != null
+                        ? pageCityOfferings(offerings, center, radiusKm, limit, after)
+                        : convertToSearchDTOs(findHospitalsByCoordinates(center[0], center[1], city, radiusKm),
+                                serviceId, limit, after);
+            }
+
+            System.out.println("Concurrent area search finished in " + (System.currentTimeMillis() - started)
+                    + " ms with " + results.getResults().size() + " hospitals");
+            return results;
+        } finally {
+            for (Future<?> stage : stages) {
+                stage.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Start a search stage on the search pool, or run it on the caller's thread when the pool is saturated
+     */
+    private <T> Future<T> fork(List<Future<?>> stages, Callable<T> stage) {
+        Future<T> future;
+        try {
+            future = searchExecutor.submit(stage);
+        } catch (TaskRejectedException e) {
+            FutureTask<T> inline = new FutureTask<>(stage);
+            inline.run();
+            future = inline;
+        }
+        stages.add(future);
+        return future;
+    }
+
+    /**
+     * Result of a stage, or null when it failed or did not finish before the deadline
+     */
+    private <T> T await(Future<T> stage, long deadline, String name) {
+        if (stage == null) return null;
+        try {
+            return stage.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.err.println("❌ Search stage '" + name + "' missed the deadline");
+        } catch (ExecutionException e) {
+            System.err.println("❌ Search stage '" + name + "' failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stage.cancel(true);
+        return null;
+    }
+
+    /**
+     * Page of the offerings within radiusKm of the center, or of all of them at distance 0 without a center
+     */
+    private HospitalSearchPageDTO pageCityOfferings(CityOfferings offerings, Double[] center, double radiusKm,
+            int limit, SearchRanking.Key after) {
+        List<HospitalSearchDTO> rows = new ArrayList<>();
+        if (center == null) {
+            for (HospitalService hs : offerings.services) {
+                HospitalSearchDTO dto = toSearchDTO(hs, offerings.ratingStats);
+                dto.setDistance(0.0);
+                rows.add(dto);
+            }
+            return page(rows, limit, after, UnaryOperator.identity());
+        }
+
+        List<HospitalService> located = new ArrayList<>(offerings.services.size());
+        for (HospitalService hs : offerings.services) {
+            Hospital hospital = hs.getHospital();
+            if (hospital.getLatitude() != null && hospital.getLongitude() != null) {
+                located.add(hs);
+            }
+        }
+
+        int count = located.size();
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            latitudes[i] = located.get(i).getHospital().getLatitude();
+            longitudes[i] = located.get(i).getHospital().getLongitude();
+        }
+
+        int[] hitIndexes = new int[count];
+        double[] hitDistances = new double[count];
+        int hits = DistanceKernel.withinRadius(center[0], center[1], latitudes, longitudes, count, radiusKm,
+                distancePrefilter, hitIndexes, hitDistances);
+        for (int j = 0; j < hits; j++) {
+            HospitalSearchDTO dto = toSearchDTO(located.get(hitIndexes[j]), offerings.ratingStats);
+            dto.setDistance(hitDistances[j]);
+            rows.add(dto);
+        }
+        return page(rows, limit, after, UnaryOperator.identity());
+    }
+
+    private CityOfferings loadCityOfferings(Long serviceId, String city) {
+        List<HospitalService> services = hospitalServiceRepository.findByServiceIdAndHospitalCity(serviceId, city);
+        List<Long> hospitalIds = services.stream().map(hs -> hs.getHospital().getId()).collect(Collectors.toList());
+        return new CityOfferings(services, loadRatingStats(hospitalIds));
+    }
+
+    /**
+     * Narrow cell-level results down to the requested circle, with distances from the exact point.
+     * Only the rows of the requested page are copied into new DTOs.
+     */
+    private HospitalSearchPageDTO refineToPoint(List<HospitalSearchDTO> cellResults, double latitude,
+            double longitude, double radiusKm, int limit, SearchRanking.Key after) {
+        List<SearchRanking.Key> candidates = new ArrayList<>();
+        for (int i = 0; i < cellResults.size(); i++) {
+            HospitalSearchDTO cached = cellResults.get(i);
+            if (cached.getLatitude() == null || cached.getLongitude() == null) continue;
+
+            double distance = calculateDistance(latitude, longitude, cached.getLatitude(), cached.getLongitude());
+            if (distance <= radiusKm) {
+                candidates.add(new SearchRanking.Key(distance, cached.getPrice(), cached.getAverageRating(),
+                        cached.getId(), i));
+            }
+        }
+
+        SearchRanking.Selection selection = SearchRanking.select(candidates, limit, after);
+        List<HospitalSearchDTO> results = new ArrayList<>(selection.keys.size());
+        for (SearchRanking.Key key : selection.keys) {
+            HospitalSearchDTO dto = copyOf(cellResults.get(key.payload));
+            dto.setDistance(key.distance);
+            results.add(dto);
+        }
+        return new HospitalSearchPageDTO(results, selection.nextCursor);
+    }
+
+    /**
+     * Top-K page over already built DTOs; only the selected rows go through the mapper
+     */
+    private HospitalSearchPageDTO page(List<HospitalSearchDTO> rows, int limit, SearchRanking.Key after,
+            UnaryOperator<HospitalSearchDTO> mapper) {
+        List<SearchRanking.Key> candidates = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            candidates.add(SearchRanking.Key.of(rows.get(i), i));
+        }
+
+        SearchRanking.Selection selection = SearchRanking.select(candidates, limit, after);
+        List<HospitalSearchDTO> results = new ArrayList<>(selection.keys.size());
+        for (SearchRanking.Key key : selection.keys) {
+            results.add(mapper.apply(rows.get(key.payload)));
         }
+        return new HospitalSearchPageDTO(results, selection.nextCursor);
+    }
+
+    private HospitalSearchDTO copyOf(HospitalSearchDTO dto) {
+        return new HospitalSearchDTO(dto.getId(), dto.getName(), dto.getAddress(), dto.getCity(),
+                dto.getLatitude(), dto.getLongitude(), dto.getPhone(), dto.getDistance(), dto.getPrice(),
+                dto.getAvailability(), dto.getWaitingTime(), dto.getAverageRating(), dto.getReviewCount());
     }
 
     private List<HospitalWithDistance> findHospitalsByCoordinates(Double latitude, Double longitude, 
@@ -117,107 +430,98 @@ public class HospitalSearchService {
             System.out.println("Reference point: " + latitude + ", " + longitude);
             System.out.println("Radius: " + radiusKm + " km");
             System.out.println("City filter: " + city);
+
+            if (hospitalSpatialIndex.isReady()) {
+                for (HospitalSpatialIndex.Hit hit : hospitalSpatialIndex.findWithinRadius(
+                        latitude, longitude, radiusKm, city)) {
+                    result.add(new HospitalWithDistance(hit.getHospitalId(), hit.getDistanceKm()));
+                }
+                System.out.println("Spatial index found " + result.size() + " hospitals within radius");
+                System.out.println("=== END COORDINATE SEARCH DEBUG ===");
+                return result;
+            }
             
-            if (city != null && !city.trim().isEmpty()) {
-                List<Object[]> hospitalCoords = hospitalRepository.getHospitalCoordinates(city.trim());
-                System.out.println("Hospitals in " + city + " with coordinates:");
-                hospitalCoords.forEach(row -> {
-                    Long id = (Long) row[0];
-                    String name = (String) row[1];
-                    Double lat = (Double) row[2];
-                    Double lon = (Double) row[3];
-                    System.out.println("  ID:" + id + " " + name + " at (" + lat + ", " + lon + ")");
-                });
-                
-                boolean querySuccess = false;
-                
+            boolean hasCity = city != null && !city.trim().isEmpty();
+            boolean querySuccess = false;
+
+            // Route straight to the strategy the startup probe found working
+            if (radiusQueryStrategy.current() == RadiusQueryStrategySelector.Strategy.SPATIAL_SQL) {
                 try {
-                    System.out.println("Trying simplified Haversine query...");
-                    List<Object[]> hospitals = hospitalRepository.findHospitalsWithinRadiusFromCitySimple(
-                            city.trim(), latitude, longitude, radiusKm);
-                    
-                    System.out.println("Simplified radius search found " + hospitals.size() + " hospitals");
-                    
+                    System.out.println("Trying spatial index query...");
+                    String envelope = GeoMath.boundingBoxWkt(latitude, longitude, radiusKm);
+                    List<Object[]> hospitals = hasCity
+                            ? hospitalRepository.findHospitalsWithinRadiusFromCity(
+                                    city.trim(), latitude, longitude, radiusKm, envelope)
+                            : hospitalRepository.findHospitalsWithinRadiusFromCoordinates(
+                                    latitude, longitude, radiusKm, envelope);
+
+                    System.out.println("Spatial radius search found " + hospitals.size() + " hospitals");
+
                     for (Object[] row : hospitals) {
-                        Hospital hospital = (Hospital) row[0];
-                        Double distance = (Double) row[1];
-                        System.out.println("  - " + hospital.getName() + ": " + distance + "km");
-                        result.add(new HospitalWithDistance(hospital, distance));
+                        Long hospitalId = ((Number) row[0]).longValue();
+                        Double distance = ((Number) row[1]).doubleValue();
+                        System.out.println("  - ID:" + hospitalId + ": " + distance + "km");
+                        result.add(new HospitalWithDistance(hospitalId, distance));
                     }
                     querySuccess = true;
-                } catch (Exception e1) {
-                    System.err.println("Simplified query failed, trying complex query: " + e1.getMessage());
-                    
-                    try {
-                        List<Object[]> hospitals = hospitalRepository.findHospitalsWithinRadiusFromCity(
-                                city.trim(), latitude, longitude, radiusKm);
-                        
-                        System.out.println("Complex radius search found " + hospitals.size() + " hospitals");
-                        
-                        for (Object[] row : hospitals) {
-                            Hospital hospital = (Hospital) row[0];
-                            Double distance = (Double) row[1];
-                            System.out.println("  - " + hospital.getName() + ": " + distance + "km");
-                            result.add(new HospitalWithDistance(hospital, distance));
-                        }
-                        querySuccess = true;
-                    } catch (Exception e2) {
-                        System.err.println("Complex query also failed: " + e2.getMessage());
-                    }
+                    radiusQueryStrategy.recordSuccess();
+                } catch (Exception e) {
+                    radiusQueryStrategy.recordFailure(e);
                 }
-                
-                if (!querySuccess) {
-                    System.out.println("All SQL queries failed, using manual distance calculation...");
-                    List<Hospital> allCityHospitals = hospitalRepository.findByCity(city.trim());
-                    
-                    for (Hospital hospital : allCityHospitals) {
-                        if (hospital.getLatitude() != null && hospital.getLongitude() != null) {
-                            double distance = calculateDistance(latitude, longitude, 
-                                    hospital.getLatitude(), hospital.getLongitude());
-                            
-                            System.out.println("  - " + hospital.getName() + ": " + distance + "km (calculated manually)");
-                            
-                            if (distance <= radiusKm) {
-                                result.add(new HospitalWithDistance(hospital, distance));
-                            }
-                        }
-                    }
-                    
-                    result.sort((a, b) -> Double.compare(a.distance, b.distance));
-                    System.out.println("Manual calculation found " + result.size() + " hospitals within radius");
+            }
+
+            if (!querySuccess) {
+                // Without a city (nearest search) every hospital with coordinates is a candidate
+                System.out.println("Using manual distance calculation...");
+                List<Object[]> rows = hasCity
+                        ? hospitalRepository.findCoordinatesByCity(city.trim())
+                        : hospitalRepository.findAllCoordinates();
+
+                // Unbox once into contiguous arrays and run the batch kernel over them
+                int count = rows.size();
+                long[] ids = new long[count];
+                double[] latitudes = new double[count];
+                double[] longitudes = new double[count];
+                for (int i = 0; i < count; i++) {
+                    Object[] row = rows.get(i);
+                    ids[i] = ((Number) row[0]).longValue();
+                    latitudes[i] = ((Number) row[1]).doubleValue();
+                    longitudes[i] = ((Number) row[2]).doubleValue();
                 }
-                
-            } else {
-                try {
-                    System.out.println("Trying simplified city-agnostic query...");
-                    List<Object[]> hospitals = hospitalRepository.findHospitalsWithinRadiusFromCoordinates(
-                            latitude, longitude, radiusKm);
-                    
-                    System.out.println("Coordinate radius search found " + hospitals.size() + " hospitals");
-                    
-                    for (Object[] row : hospitals) {
-                        Hospital hospital = (Hospital) row[0];
-                        Double distance = (Double) row[1];
-                        System.out.println("  - " + hospital.getName() + ": " + distance + "km");
-                        result.add(new HospitalWithDistance(hospital, distance));
-                    }
-                } catch (Exception e) {
-                    System.err.println("City-agnostic query failed: " + e.getMessage());
+
+                int[] hitIndexes = new int[count];
+                double[] hitDistances = new double[count];
+                int hits = DistanceKernel.withinRadius(latitude, longitude, latitudes, longitudes, count,
+                        radiusKm, distancePrefilter, hitIndexes, hitDistances);
+                for (int j = 0; j < hits; j++) {
+                    result.add(new HospitalWithDistance(ids[hitIndexes[j]], hitDistances[j]));
                 }
+
+                result.sort((a, b) -> Double.compare(a.distance, b.distance));
+                System.out.println("Manual calculation found " + result.size() + " hospitals within radius");
             }
-            
+
             System.out.println("=== END COORDINATE SEARCH DEBUG ===");
             
         } catch (Exception e) {
             System.err.println("Error in findHospitalsByCoordinates: " + e.getMessage());
             e.printStackTrace();
-            return findHospitalsByCityOnly(city);
+            return city != null && !city.trim().isEmpty() ? findHospitalsByCityOnly(city) : result;
         }
         
         return result;
     }
 
     private List<HospitalWithDistance> findHospitalsByCityOnly(String city) {
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        if (snapshot != null) {
+            List<HospitalWithDistance> result = new ArrayList<>();
+            for (int ordinal : snapshot.ordinalsInCity(city)) {
+                result.add(new HospitalWithDistance(snapshot.hospitalId(ordinal), 0.0));
+            }
+            return result;
+        }
+
         List<Hospital> hospitals = hospitalRepository.findByCity(city);
         
         if (hospitals.isEmpty()) {
@@ -228,125 +532,303 @@ public class HospitalSearchService {
         }
 
         return hospitals.stream()
-                .map(h -> new HospitalWithDistance(h, 0.0))
+                .map(h -> new HospitalWithDistance(h.getId(), 0.0))
                 .collect(Collectors.toList());
     }
 
-    private List<HospitalSearchDTO> convertToSearchDTOs(List<HospitalWithDistance> hospitalsWithDistance, 
-            Long serviceId, Double finalLat, Double finalLon) {
+    private HospitalSearchPageDTO convertToSearchDTOs(List<HospitalWithDistance> hospitalsWithDistance,
+            Long serviceId, int limit, SearchRanking.Key after) {
         
         try {
             List<Long> hospitalIds = hospitalsWithDistance.stream()
-                    .map(hwd -> hwd.hospital.getId())
+                    .map(hwd -> hwd.hospitalId)
                     .collect(Collectors.toList());
 
             System.out.println("Looking for service " + serviceId + " in hospitals: " + hospitalIds);
 
+            if (hospitalIds.isEmpty()) return new HospitalSearchPageDTO(Collections.emptyList(), null);
+
+            CatalogSnapshot snapshot = catalogSnapshotService.current();
+            if (snapshot != null) {
+                return convertFromSnapshot(snapshot, hospitalsWithDistance, serviceId, limit, after);
+            }
+
             List<HospitalService> hospitalServices = hospitalServiceRepository
                     .findByServiceIdAndHospitalIds(serviceId, hospitalIds);
 
             System.out.println("Found " + hospitalServices.size() + " hospital services");
 
             Map<Long, HospitalWithDistance> hospitalMap = hospitalsWithDistance.stream()
-                    .collect(Collectors.toMap(hwd -> hwd.hospital.getId(), hwd -> hwd));
+                    .collect(Collectors.toMap(hwd -> hwd.hospitalId, hwd -> hwd));
+
+            Map<Long, HospitalRatingStats> ratingStats = loadRatingStats(hospitalIds);
 
-            return hospitalServices.stream()
+            List<HospitalSearchDTO> rows = hospitalServices.stream()
                     .map(hs -> {
-                        Hospital hospital = hs.getHospital();
-                        HospitalWithDistance hwd = hospitalMap.get(hospital.getId());
+                        HospitalWithDistance hwd = hospitalMap.get(hs.getHospital().getId());
                         
                         if (hwd == null) return null;
 
-                        HospitalSearchDTO dto = new HospitalSearchDTO();
-                        dto.setId(hospital.getId());
-                        dto.setName(hospital.getName());
-                        dto.setAddress(hospital.getAddress());
-                        dto.setCity(hospital.getCity());
-                        dto.setLatitude(hospital.getLatitude());
-                        dto.setLongitude(hospital.getLongitude());
-                        dto.setPhone(hospital.getPhone());
-                        dto.setPrice(hs.getPrice());
-                        dto.setAvailability(hs.getAvailability());
-                        dto.setWaitingTime(hs.getWaitingTime());
-
+                        HospitalSearchDTO dto = toSearchDTO(hs, ratingStats);
                         dto.setDistance(hwd.distance);
-
-                        Double avgRating = reviewRepository.getAverageRatingByHospitalId(hospital.getId());
-                        dto.setAverageRating(avgRating != null && avgRating > 0 ? avgRating
-                                : (hospital.getRating() != null ? hospital.getRating() : 0.0));
-
-                        Long reviewCount = reviewRepository.countByHospitalId(hospital.getId());
-                        dto.setReviewCount(reviewCount != null ? reviewCount : 0);
-
                         return dto;
                     })
                     .filter(Objects::nonNull)
-                    .sorted((h1, h2) -> {
-                        int distanceComp = Double.compare(h1.getDistance(), h2.getDistance());
-                        if (distanceComp != 0) return distanceComp;
-                        int priceComp = Double.compare(h1.getPrice(), h2.getPrice());
-                        if (priceComp != 0) return priceComp;
-                        return Double.compare(h2.getAverageRating(), h1.getAverageRating());
-                    })
                     .collect(Collectors.toList());
+            return page(rows, limit, after, UnaryOperator.identity());
         } catch (Exception e) {
             System.err.println("Error in convertToSearchDTOs: " + e.getMessage());
             e.printStackTrace();
-            return Collections.emptyList();
+            return new HospitalSearchPageDTO(Collections.emptyList(), null);
+        }
+    }
+
+    /**
+     * Rank the candidates on primitive keys read from the snapshot and only build DTOs
+     * for the hospitals that make it into the page
+     */
+    private HospitalSearchPageDTO convertFromSnapshot(CatalogSnapshot snapshot,
+            List<HospitalWithDistance> hospitalsWithDistance, Long serviceId, int limit, SearchRanking.Key after) {
+        CatalogSnapshot.ServiceOfferings offerings = snapshot.offerings(serviceId);
+        if (offerings == null) return new HospitalSearchPageDTO(Collections.emptyList(), null);
+
+        List<SearchRanking.Key> candidates = new ArrayList<>();
+        for (HospitalWithDistance hwd : hospitalsWithDistance) {
+            int ordinal = snapshot.ordinalOf(hwd.hospitalId);
+            int index = offerings.indexOf(ordinal);
+            if (index >= 0) {
+                candidates.add(new SearchRanking.Key(hwd.distance, offerings.price(index),
+                        snapshot.averageRating(ordinal), hwd.hospitalId, index));
+            }
+        }
+
+        SearchRanking.Selection selection = SearchRanking.select(candidates, limit, after);
+        List<HospitalSearchDTO> results = new ArrayList<>(selection.keys.size());
+        for (SearchRanking.Key key : selection.keys) {
+            HospitalSearchDTO dto = snapshot.toSearchDTO(offerings, key.payload);
+            dto.setDistance(key.distance);
+            results.add(dto);
+        }
+        System.out.println("Matched " + candidates.size() + " hospital services in catalog snapshot");
+        return new HospitalSearchPageDTO(results, selection.nextCursor);
+    }
+
+    /**
+     * The k hospitals nearest to the point that offer the service, nearest first, without a radius.
+     * The spatial index walks outward from the point. Without it the spatial SQL radius query is
+     * repeated with a doubling radius up to search.nearest.max-radius-km; when that query is not
+     * usable the coordinates are loaded once (from the snapshot when available) and searched in
+     * memory, so a request never reads the hospital table more than once.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<HospitalSearchDTO> findNearestHospitals(Long serviceId, Double latitude, Double longitude, int k) {
+        if (serviceId == null || latitude == null || longitude == null) {
+            throw new IllegalArgumentException("serviceId, lat and lon are required");
+        }
+        if (k < 1 || k > nearestMaxK) {
+            throw new IllegalArgumentException("k must be between 1 and " + nearestMaxK);
+        }
+
+        List<HospitalWithDistance> nearest = null;
+        LongPredicate offersService = offersServiceFilter(serviceId);
+        if (hospitalSpatialIndex.isReady()) {
+            nearest = new ArrayList<>();
+            for (HospitalSpatialIndex.Hit hit : hospitalSpatialIndex.findNearest(latitude, longitude, k, offersService)) {
+                nearest.add(new HospitalWithDistance(hit.getHospitalId(), hit.getDistanceKm()));
+            }
+            System.out.println("Spatial index found " + nearest.size() + " nearest hospitals for service " + serviceId);
+        } else if (radiusQueryStrategy.current() == RadiusQueryStrategySelector.Strategy.SPATIAL_SQL) {
+            nearest = findNearestBySpatialSql(latitude, longitude, k, offersService);
+        }
+        if (nearest == null) {
+            nearest = findNearestInMemory(latitude, longitude, k, offersService);
+        }
+
+        if (nearest.isEmpty()) return Collections.emptyList();
+        return convertToSearchDTOs(nearest, serviceId, k, null).getResults();
+    }
+
+    /**
+     * Expanding-radius search with the spatial SQL query, or null if the query failed
+     */
+    private List<HospitalWithDistance> findNearestBySpatialSql(double latitude, double longitude, int k,
+            LongPredicate offersService) {
+        try {
+            for (double radiusKm = 5; ; radiusKm *= 2) {
+                double searchRadius = Math.min(radiusKm, nearestMaxRadiusKm);
+                List<HospitalWithDistance> nearest = new ArrayList<>();
+                for (Object[] row : hospitalRepository.findHospitalsWithinRadiusFromCoordinates(latitude, longitude,
+                        searchRadius, GeoMath.boundingBoxWkt(latitude, longitude, searchRadius))) {
+                    long hospitalId = ((Number) row[0]).longValue();
+                    // Only hospitals offering the service count towards k
+                    if (offersService.test(hospitalId)) {
+                        nearest.add(new HospitalWithDistance(hospitalId, ((Number) row[1]).doubleValue()));
+                    }
+                }
+                System.out.println("Nearest search at " + searchRadius + " km found " + nearest.size()
+                        + " hospitals offering the service");
+                if (nearest.size() >= k || searchRadius >= nearestMaxRadiusKm) {
+                    radiusQueryStrategy.recordSuccess();
+                    return nearest;
+                }
+            }
+        } catch (Exception e) {
+            radiusQueryStrategy.recordFailure(e);
+            return null;
+        }
+    }
+
+    /**
+     * One pass of the distance kernel over the coordinates of the hospitals offering the service,
+     * keeping the k nearest within search.nearest.max-radius-km (and any tied with the k-th)
+     */
+    private List<HospitalWithDistance> findNearestInMemory(double latitude, double longitude, int k,
+            LongPredicate offersService) {
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        List<Object[]> rows = snapshot == null ? hospitalRepository.findAllCoordinates() : null;
+        int total = snapshot != null ? snapshot.size() : rows.size();
+
+        long[] ids = new long[total];
+        double[] latitudes = new double[total];
+        double[] longitudes = new double[total];
+        int count = 0;
+        for (int i = 0; i < total; i++) {
+            long hospitalId = snapshot != null ? snapshot.hospitalId(i) : ((Number) rows.get(i)[0]).longValue();
+            if (!offersService.test(hospitalId)) continue;
+
+            ids[count] = hospitalId;
+            latitudes[count] = snapshot != null ? snapshot.latitude(i) : ((Number) rows.get(i)[1]).doubleValue();
+            longitudes[count] = snapshot != null ? snapshot.longitude(i) : ((Number) rows.get(i)[2]).doubleValue();
+            count++;
+        }
+
+        int[] hitIndexes = new int[count];
+        double[] hitDistances = new double[count];
+        int hits = DistanceKernel.withinRadius(latitude, longitude, latitudes, longitudes, count,
+                nearestMaxRadiusKm, distancePrefilter, hitIndexes, hitDistances);
+
+        List<HospitalWithDistance> nearest = new ArrayList<>(hits);
+        for (int j = 0; j < hits; j++) {
+            nearest.add(new HospitalWithDistance(ids[hitIndexes[j]], hitDistances[j]));
+        }
+        nearest.sort((a, b) -> Double.compare(a.distance, b.distance));
+        int keep = Math.min(k, nearest.size());
+        while (keep < nearest.size() && nearest.get(keep).distance.equals(nearest.get(keep - 1).distance)) {
+            keep++;
+        }
+        System.out.println("Nearest search in memory found " + keep + " of " + hits
+                + " hospitals offering the service within " + nearestMaxRadiusKm + " km");
+        return new ArrayList<>(nearest.subList(0, keep));
+    }
+
+    /**
+     * Membership test for hospitals offering the service, from the snapshot when available
+     */
+    private LongPredicate offersServiceFilter(Long serviceId) {
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        if (snapshot != null) {
+            CatalogSnapshot.ServiceOfferings offerings = snapshot.offerings(serviceId);
+            if (offerings == null) return hospitalId -> false;
+            return hospitalId -> offerings.indexOf(snapshot.ordinalOf(hospitalId)) >= 0;
         }
+
+        Set<Long> hospitalIds = new HashSet<>(hospitalServiceRepository.findHospitalIdsByServiceId(serviceId));
+        return hospitalIds::contains;
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<HospitalSearchDTO> compareHospitals(Long serviceId, List<Long> hospitalIds) {
+        if (hospitalIds == null || hospitalIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        if (snapshot != null) {
+            List<HospitalSearchDTO> results = new ArrayList<>();
+            CatalogSnapshot.ServiceOfferings offerings = snapshot.offerings(serviceId);
+            if (offerings == null) return results;
+
+            for (Long hospitalId : new LinkedHashSet<>(hospitalIds)) {
+                int index = hospitalId != null ? offerings.indexOf(snapshot.ordinalOf(hospitalId)) : -1;
+                if (index >= 0) {
+                    results.add(snapshot.toSearchDTO(offerings, index));
+                }
+            }
+            return results;
+        }
+
         List<HospitalService> hospitalServices = hospitalServiceRepository.findByServiceIdAndHospitalIds(serviceId,
                 hospitalIds);
+        Map<Long, HospitalRatingStats> ratingStats = loadRatingStats(hospitalIds);
 
-        return hospitalServices.stream().map(hs -> {
-            Hospital hospital = hs.getHospital();
-            HospitalSearchDTO dto = new HospitalSearchDTO();
-            if (hospital == null)
-                return dto;
-            dto.setId(hospital.getId());
-            dto.setName(hospital.getName());
-            dto.setAddress(hospital.getAddress());
-            dto.setCity(hospital.getCity());
-            dto.setLatitude(hospital.getLatitude());
-            dto.setLongitude(hospital.getLongitude());
-            dto.setPhone(hospital.getPhone());
-            dto.setPrice(hs.getPrice());
-            dto.setAvailability(hs.getAvailability());
-            dto.setWaitingTime(hs.getWaitingTime());
-
-            Double avgRating = reviewRepository.getAverageRatingByHospitalId(hospital.getId());
-            if (avgRating != null && avgRating > 0) {
-                dto.setAverageRating(avgRating);
-            } else {
-                dto.setAverageRating(hospital.getRating() != null ? hospital.getRating() : 0.0);
-            }
+        return hospitalServices.stream()
+                .map(hs -> toSearchDTO(hs, ratingStats))
+                .collect(Collectors.toList());
+    }
 
-            Long reviewCount = reviewRepository.countByHospitalId(hospital.getId());
-            dto.setReviewCount(reviewCount != null ? reviewCount : 0);
+    /**
+     * Pre-aggregated rating stats for all given hospitals, one primary key lookup each.
+     * Hospitals without reviews are absent from the map.
+     */
+    private Map<Long, HospitalRatingStats> loadRatingStats(List<Long> hospitalIds) {
+        Map<Long, HospitalRatingStats> stats = new HashMap<>();
+        if (hospitalIds.isEmpty()) return stats;
 
-            return dto;
-        }).collect(Collectors.toList());
+        for (HospitalRatingStats row : ratingStatsRepository.findByHospitalIdIn(hospitalIds)) {
+            stats.put(row.getHospitalId(), row);
+        }
+        return stats;
+    }
+
+    private HospitalSearchDTO toSearchDTO(HospitalService hs, Map<Long, HospitalRatingStats> ratingStats) {
+        Hospital hospital = hs.getHospital();
+        HospitalSearchDTO dto = new HospitalSearchDTO();
+        dto.setId(hospital.getId());
+        dto.setName(hospital.getName());
+        dto.setAddress(hospital.getAddress());
+        dto.setCity(hospital.getCity());
+        dto.setLatitude(hospital.getLatitude());
+        dto.setLongitude(hospital.getLongitude());
+        dto.setPhone(hospital.getPhone());
+        dto.setPrice(hs.getPrice());
+        dto.setAvailability(hs.getAvailability());
+        dto.setWaitingTime(hs.getWaitingTime());
+
+        HospitalRatingStats stats = ratingStats.get(hospital.getId());
+        if (stats != null && stats.getAverageRating() > 0) {
+            dto.setAverageRating(stats.getAverageRating());
+        } else {
+            dto.setAverageRating(hospital.getRating() != null ? hospital.getRating() : 0.0);
+        }
+        dto.setReviewCount(stats != null ? stats.getReviewCount() : 0L);
+
+        return dto;
     }
 
     private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371;
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                        * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(Math.max(0, 1 - a)));
-        return R * c;
+        return GeoMath.haversineKm(lat1, lon1, lat2, lon2);
+    }
+
+    /**
+     * Offerings of one service in one city with their rating stats, loaded ahead of
+     * the reference point (hospitals are fetched with the rows)
+     */
+    private static class CityOfferings {
+        final List<HospitalService> services;
+        final Map<Long, HospitalRatingStats> ratingStats;
+
+        CityOfferings(List<HospitalService> services, Map<Long, HospitalRatingStats> ratingStats) {
+            this.services = services;
+            this.ratingStats = ratingStats;
+        }
     }
 
     private static class HospitalWithDistance {
-        Hospital hospital;
+        Long hospitalId;
         Double distance;
 
-        HospitalWithDistance(Hospital hospital, Double distance) {
-            this.hospital = hospital;
+        HospitalWithDistance(Long hospitalId, Double distance) {
+            this.hospitalId = hospitalId;
             this.distance = distance;
         }
     }
@@ -0,0 +1,278 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.event.HospitalChangedEvent;
+import com.hospital.comparison.repository.HospitalRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory uniform grid over hospital coordinates.
+ *
+ * Radius lookups only visit the grid cells overlapping the bounding box of the
+ * search circle, so the cost depends on how many hospitals are near the
+ * reference point rather than on the size of the hospital table. The grid is
+ * loaded once the application is ready and follows hospital writes through
+ * {@link HospitalChangedEvent}.
+ */
+@Service
+public class HospitalSpatialIndex {
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Value("${search.spatial-index.cell-size-degrees:0.05}")
+    private double cellSizeDegrees;
+
+    private final Map<Long, Entry> entriesById = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, Entry>> cells = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            List<Object[]> rows = hospitalRepository.findAllCoordinates();
+            entriesById.clear();
+            cells.clear();
+            for (Object[] row : rows) {
+                put((Long) row[0], (Double) row[1], (Double) row[2], (String) row[3]);
+            }
+            ready = true;
+            System.out.println("✅ Spatial index loaded with " + entriesById.size() + " hospitals");
+        } catch (Exception e) {
+            ready = false;
+            System.err.println("❌ Spatial index load failed, radius search will use SQL: " + e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHospitalChanged(HospitalChangedEvent event) {
+        if (event.getHospitalId() == null) return;
+
+        remove(event.getHospitalId());
+        if (!event.isRemoved() && event.getLatitude() != null && event.getLongitude() != null) {
+            put(event.getHospitalId(), event.getLatitude(), event.getLongitude(), event.getCity());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return entriesById.size();
+    }
+
+    /**
+     * Find hospitals within radiusKm of the reference point, nearest first.
+     * When city is given only hospitals in that city (case-insensitive) are returned.
+     */
+    public List<Hit> findWithinRadius(double latitude, double longitude, double radiusKm, String city) {
+        String cityKey = normalizeCity(city);
+        List<Hit> hits = new ArrayList<>();
+
+        double dLat = GeoMath.latitudeDegrees(radiusKm);
+        double dLon = GeoMath.longitudeDegrees(radiusKm, latitude);
+        int rowMin = row(latitude - dLat);
+        int rowMax = row(latitude + dLat);
+        int colMin = col(longitude - dLon);
+        int colMax = col(longitude + dLon);
+
+        long cellCount = (long) (rowMax - rowMin + 1) * (colMax - colMin + 1);
+        if (cellCount > cells.size()) {
+            // Very large radius: walking the populated cells is cheaper than the empty ones
+            for (Map<Long, Entry> cell : cells.values()) {
+                collect(cell, latitude, longitude, radiusKm, cityKey, hits);
+            }
+        } else {
+            for (int r = rowMin; r <= rowMax; r++) {
+                for (int c = colMin; c <= colMax; c++) {
+                    Map<Long, Entry> cell = cells.get(cellKey(r, c));
+                    if (cell != null) {
+                        collect(cell, latitude, longitude, radiusKm, cityKey, hits);
+                    }
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return hits;
+    }
+
+    /**
+     * Find the k hospitals nearest to the reference point that pass the filter, nearest first,
+     * without a radius. Cells are visited in square rings around the reference cell and the
+     * walk stops as soon as no unvisited cell can hold anything closer than the current k-th hit.
+     */
+    public List<Hit> findNearest(double latitude, double longitude, int k, LongPredicate filter) {
+        PriorityQueue<Hit> nearest = new PriorityQueue<>(k + 1,
+                Comparator.comparingDouble(Hit::getDistanceKm).reversed());
+        if (k <= 0 || entriesById.isEmpty()) return new ArrayList<>();
+
+        int centerRow = row(latitude);
+        int centerCol = col(longitude);
+        int maxRing = Math.max(Math.max(centerRow, row(90) - centerRow), Math.max(centerCol, col(180) - centerCol));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            long ringCells = ring == 0 ? 1 : 8L * ring;
+            if (ringCells > cells.size()) {
+                // Sparse far-away data: finish with the populated cells outside the rings walked so far
+                for (Map.Entry<Long, Map<Long, Entry>> cell : cells.entrySet()) {
+                    int r = (int) (cell.getKey() >> 32);
+                    int c = (int) (long) cell.getKey();
+                    if (Math.max(Math.abs(r - centerRow), Math.abs(c - centerCol)) >= ring) {
+                        collectNearest(cell.getValue(), latitude, longitude, k, filter, nearest);
+                    }
+                }
+                break;
+            }
+
+            for (int r = centerRow - ring; r <= centerRow + ring; r++) {
+                boolean edgeRow = r == centerRow - ring || r == centerRow + ring;
+                int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                for (int c = centerCol - ring; c <= centerCol + ring; c += step) {
+                    Map<Long, Entry> cell = cells.get(cellKey(r, c));
+                    if (cell != null) {
+                        collectNearest(cell, latitude, longitude, k, filter, nearest);
+                    }
+                }
+            }
+
+            if (nearest.size() == k && nearest.peek().getDistanceKm() <= minDistanceOutside(latitude, longitude,
+                    centerRow, centerCol, ring)) {
+                break;
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(nearest);
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return hits;
+    }
+
+    private void collectNearest(Map<Long, Entry> cell, double latitude, double longitude, int k,
+            LongPredicate filter, PriorityQueue<Hit> nearest) {
+        for (Entry entry : cell.values()) {
+            double distance = GeoMath.haversineKm(latitude, longitude, entry.latitude, entry.longitude);
+            if (nearest.size() == k && distance >= nearest.peek().getDistanceKm()) continue;
+            if (!filter.test(entry.hospitalId)) continue;
+
+            nearest.add(new Hit(entry.hospitalId, distance));
+            if (nearest.size() > k) {
+                nearest.poll();
+            }
+        }
+    }
+
+    /**
+     * Lower bound on the great-circle distance from the reference point to any cell outside
+     * the square of rings 0..ring. Uses d >= dLat and sin(d/2) >= cos(maxLat) * sin(dLon/2).
+     */
+    private double minDistanceOutside(double latitude, double longitude, int centerRow, int centerCol, int ring) {
+        double south = (centerRow - ring) * cellSizeDegrees - 90;
+        double north = (centerRow + ring + 1) * cellSizeDegrees - 90;
+        double west = (centerCol - ring) * cellSizeDegrees - 180;
+        double east = (centerCol + ring + 1) * cellSizeDegrees - 180;
+
+        double latGap = Math.min(latitude - south, north - latitude);
+        double lonGap = Math.min(longitude - west, east - longitude);
+        double maxAbsLat = Math.min(90, Math.max(Math.abs(south), Math.abs(north)));
+
+        double latBoundKm = latGap * GeoMath.KM_PER_DEGREE;
+        double lonBoundKm = 2 * GeoMath.EARTH_RADIUS_KM * Math.asin(Math.cos(Math.toRadians(maxAbsLat))
+                * Math.sin(Math.toRadians(Math.min(lonGap, 180)) / 2));
+        return Math.min(latBoundKm, lonBoundKm);
+    }
+
+    private void collect(Map<Long, Entry> cell, double latitude, double longitude, double radiusKm,
+            String cityKey, List<Hit> hits) {
+        for (Entry entry : cell.values()) {
+            if (cityKey != null && !cityKey.equals(entry.city)) continue;
+
+            double distance = GeoMath.haversineKm(latitude, longitude, entry.latitude, entry.longitude);
+            if (distance <= radiusKm) {
+                hits.add(new Hit(entry.hospitalId, distance));
+            }
+        }
+    }
+
+    private void put(Long hospitalId, Double latitude, Double longitude, String city) {
+        if (hospitalId == null || latitude == null || longitude == null) return;
+
+        Entry entry = new Entry(hospitalId, latitude, longitude, normalizeCity(city),
+                cellKey(row(latitude), col(longitude)));
+        entriesById.put(hospitalId, entry);
+        cells.computeIfAbsent(entry.cellKey, k -> new ConcurrentHashMap<>()).put(hospitalId, entry);
+    }
+
+    private void remove(Long hospitalId) {
+        Entry previous = entriesById.remove(hospitalId);
+        if (previous != null) {
+            cells.computeIfPresent(previous.cellKey, (k, cell) -> {
+                cell.remove(hospitalId);
+                return cell.isEmpty() ? null : cell;
+            });
+        }
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((Math.max(-90, Math.min(90, latitude)) + 90) / cellSizeDegrees);
+    }
+
+    private int col(double longitude) {
+        return (int) Math.floor((Math.max(-180, Math.min(180, longitude)) + 180) / cellSizeDegrees);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    private static String normalizeCity(String city) {
+        return city == null || city.trim().isEmpty() ? null : city.trim().toLowerCase();
+    }
+
+    private static class Entry {
+        final Long hospitalId;
+        final double latitude;
+        final double longitude;
+        final String city;
+        final long cellKey;
+
+        Entry(Long hospitalId, double latitude, double longitude, String city, long cellKey) {
+            this.hospitalId = hospitalId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.city = city;
+            this.cellKey = cellKey;
+        }
+    }
+
+    public static class Hit {
+        private final Long hospitalId;
+        private final double distanceKm;
+
+        Hit(Long hospitalId, double distanceKm) {
+            this.hospitalId = hospitalId;
+            this.distanceKm = distanceKm;
+        }
+
+        public Long getHospitalId() {
+            return hospitalId;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.hospital.comparison.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicting store of Idempotency-Key results for write endpoints.
+ *
+ * The first request with a key runs the action; a repeat within the TTL gets the
+ * stored result without running it again. A repeat arriving while the first is
+ * still running waits for it, so concurrent duplicates are collapsed onto one
+ * execution. Failed executions are not stored and may be retried with the same
+ * key. A key reused with a different request body is rejected.
+ *
+ * Keys live in memory on one instance; duplicates routed to different instances
+ * are not collapsed.
+ */
+@Service
+public class IdempotencyKeyStore {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    private Map<String, Stored> entries;
+
+    private Counter executed;
+    private Counter replayed;
+    private Counter evictions;
+
+    @PostConstruct
+    void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        executed = Counter.builder("idempotency.requests").tag("result", "executed").register(meterRegistry);
+        replayed = Counter.builder("idempotency.requests").tag("result", "replayed").register(meterRegistry);
+        evictions = Counter.builder("idempotency.evictions").register(meterRegistry);
+        Gauge.builder("idempotency.size", this, IdempotencyKeyStore::size).register(meterRegistry);
+    }
+
+    /**
+     * Run the action once per (scope, key). request identifies the payload; a key
+     * seen before with a different payload is rejected.
+     * @throws IllegalArgumentException for an invalid key or a key reused with another payload
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> execute(String scope, String key, Object request, Supplier<T> action) {
+        if (key == null || key.trim().isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String storeKey = scope + ":" + key.trim();
+        String fingerprint = fingerprint(request);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        Stored existing;
+        synchronized (this) {
+            existing = entries.get(storeKey);
+            if (existing != null && existing.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(storeKey);
+                existing = null;
+            }
+            if (existing == null) {
+                entries.put(storeKey, new Stored(fingerprint, call,
+                        System.currentTimeMillis() + ttlMinutes * 60_000L));
+            }
+        }
+
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IllegalArgumentException("Idempotency-Key was already used with a different request");
+            }
+            replayed.increment();
+            try {
+                return new Result<>((T) existing.result.join(), true);
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            T result = action.get();
+            call.complete(result);
+            executed.increment();
+            return new Result<>(result, false);
+        } catch (RuntimeException e) {
+            // Concurrent duplicates see the same failure; later retries run again
+            synchronized (this) {
+                entries.remove(storeKey);
+            }
+            call.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Stored {
+        final String fingerprint;
+        final CompletableFuture<Object> result;
+        final long expiresAt;
+
+        Stored(String fingerprint, CompletableFuture<Object> result, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static class Result<T> {
+        private final T value;
+        private final boolean replayed;
+
+        Result(T value, boolean replayed) {
+            this.value = value;
+            this.replayed = replayed;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+}
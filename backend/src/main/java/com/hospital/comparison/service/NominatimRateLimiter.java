@@ -0,0 +1,157 @@
+package com.hospital.comparison.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Global token bucket for outbound Nominatim calls (the public instance allows
+ * one request per second).
+ *
+ * Callers reserve a token and sleep until it becomes valid. At most maxQueue
+ * callers may wait at a time, and a caller whose reservation would exceed its
+ * wait budget is rejected immediately, so a burst of searches fails fast instead
+ * of piling up blocked request threads. A caller interrupted while it waits
+ * (cancelled search stage) gives its token back when no later caller has
+ * reserved one after it; otherwise the slot stays unused, which is never faster
+ * than the rate.
+ */
+@Service
+public class NominatimRateLimiter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${geocoding.rate-limit.permits-per-second:1.0}")
+    private double permitsPerSecond;
+
+    @Value("${geocoding.rate-limit.burst:1}")
+    private int burst;
+
+    @Value("${geocoding.rate-limit.max-queue:10}")
+    private int maxQueue;
+
+    @Value("${geocoding.rate-limit.max-wait-ms:3000}")
+    private long maxWaitMillis;
+
+    private double tokens;
+    private long lastRefill;
+    private int waiting = 0;
+    // Sequence number of the latest reservation still owned by a waiting caller
+    private long lastReservation = 0;
+
+    private Timer waitTimer;
+    private Counter rejectedQueueFull;
+    private Counter rejectedDeadline;
+    private Counter cancelled;
+
+    @PostConstruct
+    void init() {
+        tokens = burst;
+        lastRefill = System.nanoTime();
+
+        waitTimer = Timer.builder("geocoding.limiter.wait").register(meterRegistry);
+        rejectedQueueFull = Counter.builder("geocoding.limiter.rejected").tag("reason", "queue-full")
+                .register(meterRegistry);
+        rejectedDeadline = Counter.builder("geocoding.limiter.rejected").tag("reason", "deadline")
+                .register(meterRegistry);
+        cancelled = Counter.builder("geocoding.limiter.cancelled").register(meterRegistry);
+        Gauge.builder("geocoding.limiter.queue.depth", this, NominatimRateLimiter::queueDepth).register(meterRegistry);
+    }
+
+    /**
+     * Wait for permission to make one upstream call, within the configured wait budget
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(maxWaitMillis);
+    }
+
+    /**
+     * Wait for permission to make one upstream call. Returns false without waiting when
+     * the queue is full or the call could not start within maxWaitMillis.
+     */
+    public boolean tryAcquire(long maxWaitMillis) {
+        long waitNanos;
+        long reservation;
+        synchronized (this) {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return true;
+            }
+            if (waiting >= maxQueue) {
+                rejectedQueueFull.increment();
+                return false;
+            }
+
+            waitNanos = (long) ((1 - tokens) / permitsPerSecond * 1_000_000_000L);
+            if (waitNanos > TimeUnit.MILLISECONDS.toNanos(maxWaitMillis)) {
+                rejectedDeadline.increment();
+                return false;
+            }
+            // Reserve the token now; the balance goes negative until it is earned
+            tokens -= 1;
+            waiting++;
+            reservation = ++lastReservation;
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelReservation(reservation);
+            return false;
+        } finally {
+            synchronized (this) {
+                waiting--;
+            }
+        }
+    }
+
+    /**
+     * Give an unused token back if it is the latest reservation; earlier slots are
+     * already counted on by the callers queued behind them
+     */
+    private synchronized void cancelReservation(long reservation) {
+        if (reservation != lastReservation) return;
+        refill();
+        tokens = Math.min(burst, tokens + 1);
+        lastReservation--;
+        cancelled.increment();
+    }
+
+    /**
+     * Give back a token from {@link #tryAcquire(long)} whose call did not go out. Only
+     * done while nobody is queued, since queued callers already count on the next slots.
+     */
+    public synchronized void release() {
+        if (waiting > 0) return;
+        refill();
+        tokens = Math.min(burst, tokens + 1);
+        cancelled.increment();
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public synchronized int queueDepth() {
+        return waiting;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / 1_000_000_000.0 * permitsPerSecond);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,245 @@
+package com.hospital.comparison.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * EXPLAIN check of every repository query (explain-check profile).
+ *
+ * Calls each query method declared on the application's repositories with sample
+ * arguments, inside a transaction that is rolled back, and inspects the plan of
+ * every statement it ran (see {@link QueryPlanRecorder}). A full table scan or
+ * full index scan (MySQL access type ALL / index) of a table estimated at
+ * min-table-rows rows or more is a failure, except for the queries listed in
+ * FULL_READS, which read whole tables by design. The application exits when the
+ * check is done, with status 1 if anything failed:
+ *
+ *   mvn -Pexplain-check verify
+ *
+ * The plans depend on the data, so run it against a local database holding a
+ * realistic amount of it.
+ */
+@Service
+@Profile("explain-check")
+public class QueryPlanCheck {
+
+    private static final Set<String> FULL_SCAN_TYPES = Set.of("ALL", "index");
+
+    /** Queries that read whole tables by design, with the reason */
+    private static final Map<String, String> FULL_READS = Map.of(
+            "HospitalRepository.findAllCoordinates", "loads the spatial index",
+            "HospitalRepository.findCatalogRows", "loads the catalog snapshot",
+            "HospitalRepository.findDistinctCities", "pre-warm job, once per run",
+            "HospitalRepository.countMissingCoordinates", "pre-warm job, once per run",
+            "HospitalServiceRepository.findCatalogRows", "loads the catalog snapshot",
+            "HospitalServiceRepository.findBookingRows", "bulk import, once per file",
+            "ServiceRepository.searchByName", "substring LIKE cannot use a B-tree index");
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private QueryPlanRecorder recorder;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DatabaseVendor databaseVendor;
+
+    @Value("${explain-check.min-table-rows:1000}")
+    private long minTableRows;
+
+    @Value("${explain-check.exit:true}")
+    private boolean exitWhenDone;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runCheck() {
+        boolean passed = check();
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context, () -> passed ? 0 : 1));
+        }
+    }
+
+    /**
+     * Check all repository query methods
+     * @return true when no query does a disallowed full scan
+     */
+    public boolean check() {
+        List<String> failures = new ArrayList<>();
+        int checked = 0;
+
+        Repositories repositories = new Repositories(context);
+        for (Class<?> domainType : repositories) {
+            Class<?> repositoryInterface = repositories.getRepositoryInformationFor(domainType)
+                    .orElseThrow().getRepositoryInterface();
+            Object repository = repositories.getRepositoryFor(domainType).orElseThrow();
+
+            Method[] methods = repositoryInterface.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (method.isSynthetic() || method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                if (!forThisDatabase(method.getName())) continue;
+                String name = repositoryInterface.getSimpleName() + "." + method.getName();
+                checked++;
+                failures.addAll(checkMethod(name, repository, method));
+            }
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("✅ EXPLAIN check passed for " + checked + " repository queries");
+            return true;
+        }
+        System.err.println("❌ EXPLAIN check failed for " + failures.size() + " of " + checked
+                + " repository queries:");
+        failures.forEach(failure -> System.err.println("  " + failure));
+        return false;
+    }
+
+    /**
+     * Statements written for one database (createIfAbsentMySql, createIfAbsentPostgres) only run there
+     */
+    private boolean forThisDatabase(String methodName) {
+        if (methodName.endsWith("MySql")) return databaseVendor.name().equals(DatabaseVendor.MYSQL);
+        if (methodName.endsWith("Postgres")) return databaseVendor.isPostgres();
+        return true;
+    }
+
+    private List<String> checkMethod(String name, Object repository, Method method) {
+        List<QueryPlanRecorder.QueryPlan> plans;
+        try {
+            plans = transactionTemplate.execute(status -> {
+                status.setRollbackOnly();
+                recorder.start();
+                try {
+                    method.invoke(repository, sampleArguments(method));
+                    return recorder.stop();
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    recorder.stop();
+                    Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+                    throw new IllegalStateException(cause.getMessage(), cause);
+                }
+            });
+        } catch (RuntimeException e) {
+            return List.of(name + ": could not run: " + e.getMessage());
+        }
+        if (plans == null || plans.isEmpty()) {
+            return List.of(name + ": ran no SQL statement");
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (QueryPlanRecorder.QueryPlan plan : plans) {
+            if (plan.getError() != null) {
+                failures.add(name + ": EXPLAIN failed: " + plan.getError());
+                continue;
+            }
+            for (Map<String, Object> row : plan.getRows()) {
+                String scan = fullScan(row);
+                if (scan == null) continue;
+                if (FULL_READS.containsKey(name)) {
+                    System.out.println("EXPLAIN " + name + ": " + scan + " (allowed: " + FULL_READS.get(name) + ")");
+                } else {
+                    failures.add(name + ": " + scan + " in " + plan.getSql());
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Description of the full scan in the EXPLAIN row, or null when the row uses an index
+     * or scans a table below min-table-rows
+     */
+    private String fullScan(Map<String, Object> row) {
+        Object type = row.get("type");
+        if (type == null || !FULL_SCAN_TYPES.contains(type.toString())) return null;
+        Object selectType = row.get("select_type");
+        if (selectType != null && (selectType.equals("INSERT") || selectType.equals("REPLACE"))) return null;
+
+        long rows = row.get("rows") instanceof Number ? ((Number) row.get("rows")).longValue() : 0;
+        if (rows < minTableRows) return null;
+        return ("ALL".equals(type) ? "full table scan" : "full index scan") + " of " + row.get("table")
+                + " (~" + rows + " rows)";
+    }
+
+    /**
+     * Sample values by parameter name, falling back to the parameter type
+     */
+    private Object[] sampleArguments(Method method) {
+        Parameter[] parameters = method.getParameters();
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Param param = parameters[i].getAnnotation(Param.class);
+            String name = param != null ? param.value() : parameters[i].getName();
+            args[i] = sampleArgument(name, parameters[i].getType());
+        }
+        return args;
+    }
+
+    private Object sampleArgument(String name, Class<?> type) {
+        switch (name) {
+            case "envelope":
+                return "POLYGON((77.0 28.4, 77.4 28.4, 77.4 28.8, 77.0 28.8, 77.0 28.4))";
+            case "latitude":
+                return 28.6139;
+            case "longitude":
+                return 77.2090;
+            case "radiusKm":
+                return 10.0;
+            case "city":
+                return "New Delhi";
+            case "patientPhone":
+                return "9876543210";
+            case "status":
+                return "BOOKED";
+            case "category":
+                return "Medical";
+            case "keyword":
+                return "card";
+            case "email":
+                return "patient@example.com";
+            case "afterDate":
+                return LocalDateTime.of(9999, 12, 31, 23, 59);
+            case "afterId":
+                return Long.MAX_VALUE;
+            case "dayStart":
+                return LocalDate.now().atStartOfDay();
+            case "dayEnd":
+                return LocalDate.now().plusDays(1).atStartOfDay();
+            default:
+                break;
+        }
+
+        if (type == Long.class || type == long.class) return 1L;
+        if (type == Integer.class || type == int.class) return 1;
+        if (type == Double.class || type == double.class) return 1.0;
+        if (type == Boolean.class || type == boolean.class) return true;
+        if (type == String.class) return "x";
+        if (type == LocalDate.class) return LocalDate.now();
+        if (type == LocalDateTime.class) return LocalDateTime.now();
+        if (type == Pageable.class) return PageRequest.of(0, 20);
+        if (Collection.class.isAssignableFrom(type)) return List.of(1L, 2L, 3L);
+        throw new IllegalArgumentException("No sample value for parameter " + name + " of type " + type.getSimpleName());
+    }
+}
@@ -0,0 +1,142 @@
+package com.hospital.comparison.service;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Captures the execution plan of every SQL statement a thread runs while recording.
+ *
+ * {@link #wrap} decorates a DataSource so that each prepared statement, right
+ * before it executes, is also sent as EXPLAIN with the same bound parameters on
+ * the same connection. Outside of {@link #start()}/{@link #stop()} the wrapper
+ * only passes calls through. Used by the explain-check profile only.
+ */
+public class QueryPlanRecorder {
+
+    private final ThreadLocal<List<QueryPlan>> recording = new ThreadLocal<>();
+
+    public void start() {
+        recording.set(new ArrayList<>());
+    }
+
+    public List<QueryPlan> stop() {
+        List<QueryPlan> plans = recording.get();
+        recording.remove();
+        return plans != null ? plans : Collections.emptyList();
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (method, args) -> {
+            Object result = invoke(method, dataSource, args);
+            return result instanceof Connection ? wrapConnection((Connection) result) : result;
+        });
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = invoke(method, connection, args);
+            if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                return wrapStatement((PreparedStatement) result, connection, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement wrapStatement(PreparedStatement statement, Connection connection, String sql) {
+        Map<Integer, Object[]> parameters = new TreeMap<>();
+        Map<Integer, Method> setters = new HashMap<>();
+        return proxy(PreparedStatement.class, statement, (method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], args);
+                setters.put((Integer) args[0], method);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+                setters.clear();
+            } else if ((args == null || args.length == 0) && name.startsWith("execute")) {
+                List<QueryPlan> plans = recording.get();
+                if (plans != null) {
+                    plans.add(explain(connection, sql, parameters, setters));
+                }
+            }
+            return invoke(method, statement, args);
+        });
+    }
+
+    private QueryPlan explain(Connection connection, String sql, Map<Integer, Object[]> parameters,
+                              Map<Integer, Method> setters) {
+        QueryPlan plan = new QueryPlan(sql);
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (Map.Entry<Integer, Object[]> parameter : parameters.entrySet()) {
+                setters.get(parameter.getKey()).invoke(explain, parameter.getValue());
+            }
+            try (ResultSet rs = explain.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        row.put(meta.getColumnLabel(i), rs.getObject(i));
+                    }
+                    plan.rows.add(row);
+                }
+            }
+        } catch (SQLException | ReflectiveOperationException e) {
+            plan.error = e.getMessage();
+        }
+        return plan;
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                return invoke(method, target, args);
+            }
+            return handler.handle(method, args);
+        };
+        return (T) Proxy.newProxyInstance(QueryPlanRecorder.class.getClassLoader(), new Class<?>[]{type},
+                invocationHandler);
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * A statement and its EXPLAIN rows (column label to value), or the error EXPLAIN gave
+     */
+    public static class QueryPlan {
+        private final String sql;
+        private final List<Map<String, Object>> rows = new ArrayList<>();
+        private String error;
+
+        QueryPlan(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Map<String, Object>> getRows() {
+            return rows;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.repository.HospitalRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides how SQL radius searches are executed.
+ *
+ * The spatial query is probed once at startup. Searches are then routed straight
+ * to the strategy that works, so a database without spatial support does not
+ * throw on every request. A run of consecutive failures triggers a new probe,
+ * and while the manual strategy is active the spatial query is re-probed
+ * periodically so the fast path comes back once the database supports it.
+ */
+@Service
+public class RadiusQueryStrategySelector {
+
+    public enum Strategy {
+        SPATIAL_SQL,
+        MANUAL
+    }
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${search.radius-strategy.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${search.radius-strategy.reprobe-interval-seconds:600}")
+    private long reprobeIntervalSeconds;
+
+    private volatile Strategy strategy = Strategy.SPATIAL_SQL;
+    private volatile long lastProbeAt = 0;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private final Map<Strategy, Counter> queries = new EnumMap<>(Strategy.class);
+    private Counter fallbacks;
+    private Counter probeSuccesses;
+    private Counter probeFailures;
+
+    @PostConstruct
+    void init() {
+        for (Strategy s : Strategy.values()) {
+            queries.put(s, Counter.builder("search.radius.queries").tag("strategy", s.name().toLowerCase())
+                    .register(meterRegistry));
+            Gauge.builder("search.radius.strategy.active", this, selector -> selector.strategy == s ? 1 : 0)
+                    .tag("strategy", s.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        fallbacks = Counter.builder("search.radius.fallbacks").register(meterRegistry);
+        probeSuccesses = Counter.builder("search.radius.probes").tag("result", "success").register(meterRegistry);
+        probeFailures = Counter.builder("search.radius.probes").tag("result", "failure").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void probeOnStartup() {
+        probe();
+    }
+
+    /**
+     * Run the spatial query once against a tiny envelope and switch strategy accordingly
+     */
+    public synchronized Strategy probe() {
+        lastProbeAt = System.currentTimeMillis();
+        try {
+            hospitalRepository.findHospitalsWithinRadiusFromCoordinates(0.0, 0.0, 1.0,
+                    GeoMath.boundingBoxWkt(0.0, 0.0, 1.0));
+            probeSuccesses.increment();
+            switchTo(Strategy.SPATIAL_SQL);
+        } catch (Exception e) {
+            probeFailures.increment();
+            System.err.println("❌ Spatial radius query unavailable, using manual distance calculation: "
+                    + e.getMessage());
+            switchTo(Strategy.MANUAL);
+        }
+        consecutiveFailures.set(0);
+        return strategy;
+    }
+
+    /**
+     * Strategy for the next search. While on the manual strategy the spatial query
+     * is re-probed at most once per interval.
+     */
+    public Strategy current() {
+        Strategy current = strategy;
+        if (current == Strategy.MANUAL
+                && System.currentTimeMillis() - lastProbeAt > reprobeIntervalSeconds * 1000) {
+            current = probe();
+        }
+        queries.get(current).increment();
+        return current;
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    /**
+     * A spatial query failed after the probe succeeded; the caller falls back for this request
+     */
+    public void recordFailure(Exception e) {
+        fallbacks.increment();
+        int failures = consecutiveFailures.incrementAndGet();
+        System.err.println("Spatial radius query failed (" + failures + "/" + failureThreshold + "): "
+                + e.getMessage());
+        if (failures >= failureThreshold) {
+            probe();
+        }
+    }
+
+    private void switchTo(Strategy next) {
+        if (strategy != next || lastProbeAt == 0) {
+            System.out.println("✅ Radius search strategy: " + next);
+        }
+        strategy = next;
+    }
+}
@@ -0,0 +1,174 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.entity.HospitalRatingStats;
+import com.hospital.comparison.event.ReviewAddedEvent;
+import com.hospital.comparison.repository.HospitalRatingStatsRepository;
+import com.hospital.comparison.repository.HospitalRepository;
+import com.hospital.comparison.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps hospital_rating_stats in line with the review table.
+ *
+ * Recounts the reviews of batch-size hospitals at a time (one transaction per
+ * batch, through the review index) and rewrites only the rows that differ. A row
+ * is rewritten only if its review_count is still what was read, so a review
+ * recorded meanwhile is never lost; that row is checked again on the next run.
+ *
+ * Runs at startup when the stats table is still empty (backfill) and then on
+ * repair-cron, to fix drift from reviews edited or deleted outside the
+ * application. There is deliberately no HTTP endpoint for it.
+ */
+@Service
+public class RatingStatsRebuildJob {
+
+    @Autowired
+    private HospitalRatingStatsRepository ratingStatsRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private DatabaseVendor databaseVendor;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${reviews.rating-stats.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Value("${reviews.rating-stats.repair-enabled:true}")
+    private boolean repairEnabled;
+
+    @Value("${reviews.rating-stats.repair-batch-size:500}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!rebuildOnStartup) return;
+
+        try {
+            if (ratingStatsRepository.count() == 0 && reviewRepository.count() > 0) {
+                System.out.println("Rating stats table is empty, backfilling from reviews...");
+                rebuild();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Rating stats backfill failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${reviews.rating-stats.repair-cron:0 30 3 * * *}")
+    public void scheduledRepair() {
+        if (!repairEnabled) return;
+
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("❌ Rating stats repair failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recount the rating aggregates of every hospital
+     * @return number of rows that were corrected
+     */
+    public int rebuild() {
+        if (!running.compareAndSet(false, true)) {
+            System.out.println("Rating stats repair already running, skipping");
+            return 0;
+        }
+
+        try {
+            int corrected = 0;
+            long afterId = 0;
+            while (true) {
+                List<Long> hospitalIds = hospitalRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+                if (hospitalIds.isEmpty()) break;
+
+                Integer fixed = transactionTemplate.execute(status -> repairBatch(hospitalIds));
+                corrected += fixed != null ? fixed : 0;
+                afterId = hospitalIds.get(hospitalIds.size() - 1);
+            }
+            System.out.println("✅ Rating stats checked, " + corrected + " hospitals corrected");
+            return corrected;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int repairBatch(List<Long> hospitalIds) {
+        Map<Long, HospitalRatingStats> stored = new HashMap<>();
+        for (HospitalRatingStats stats : ratingStatsRepository.findByHospitalIdIn(hospitalIds)) {
+            stored.put(stats.getHospitalId(), stats);
+        }
+
+        Map<Long, long[]> starCounts = new HashMap<>();
+        for (Object[] row : reviewRepository.countRatingsByHospitalIds(hospitalIds)) {
+            int rating = ((Number) row[1]).intValue();
+            if (rating < 1 || rating > 5) continue;
+            starCounts.computeIfAbsent((Long) row[0], id -> new long[5])[rating - 1] = ((Number) row[2]).longValue();
+        }
+
+        int corrected = 0;
+        for (Long hospitalId : hospitalIds) {
+            long[] stars = starCounts.getOrDefault(hospitalId, new long[5]);
+            HospitalRatingStats current = stored.get(hospitalId);
+            if (current == null && !starCounts.containsKey(hospitalId)) continue;
+            if (current != null && matches(current, stars)) continue;
+
+            long expectedReviewCount = 0;
+            if (current == null) {
+                if (databaseVendor.isPostgres()) {
+                    ratingStatsRepository.createIfAbsentPostgres(hospitalId);
+                } else {
+                    ratingStatsRepository.createIfAbsentMySql(hospitalId);
+                }
+            } else {
+                expectedReviewCount = current.getReviewCount();
+            }
+
+            if (ratingStatsRepository.replaceIfUnchanged(hospitalId, expectedReviewCount,
+                    ratingSum(stars), reviewCount(stars), stars[0], stars[1], stars[2], stars[3], stars[4]) == 1) {
+                corrected++;
+                // Search cache and catalog snapshot re-read the row, as for a new review
+                eventPublisher.publishEvent(new ReviewAddedEvent(hospitalId, null));
+            }
+        }
+        return corrected;
+    }
+
+    private static boolean matches(HospitalRatingStats stats, long[] stars) {
+        return stats.getReviewCount() == reviewCount(stars) && stats.getRatingSum() == ratingSum(stars)
+                && stats.getStar1() == stars[0] && stats.getStar2() == stars[1] && stats.getStar3() == stars[2]
+                && stats.getStar4() == stars[3] && stats.getStar5() == stars[4];
+    }
+
+    private static long reviewCount(long[] stars) {
+        return stars[0] + stars[1] + stars[2] + stars[3] + stars[4];
+    }
+
+    private static long ratingSum(long[] stars) {
+        return stars[0] + 2 * stars[1] + 3 * stars[2] + 4 * stars[3] + 5 * stars[4];
+    }
+}
@@ -0,0 +1,130 @@
+package com.hospital.comparison.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reverse geocoding answers keyed by geohash cell.
+ *
+ * GPS fixes jitter between page loads, so answers are shared by every fix in the
+ * same cell rather than keyed by exact coordinates. Answers are stored in the
+ * persistent {@link GeocodeCache} under "reverse:" keys, so they survive a
+ * restart and share its memory bound. Answers without a city are kept only for
+ * empty-ttl-minutes. A small sample of hits is re-checked against the upstream
+ * answer for the exact fix (see {@link #shouldVerify()}) so the mismatch rate of
+ * the chosen precision can be watched alongside the hit ratio.
+ */
+@Service
+public class ReverseGeocodeCache {
+
+    @Autowired
+    private GeocodeCache geocodeCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${geocoding.reverse-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${geocoding.reverse-cache.geohash-precision:6}")
+    private int precision;
+
+    @Value("${geocoding.reverse-cache.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${geocoding.reverse-cache.empty-ttl-minutes:15}")
+    private long emptyTtlMinutes;
+
+    @Value("${geocoding.reverse-cache.verify-sample-rate:0.01}")
+    private double verifySampleRate;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter verifiedMatches;
+    private Counter verifiedMismatches;
+
+    @PostConstruct
+    void init() {
+        hits = Counter.builder("geocoding.reverse-cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("geocoding.reverse-cache.requests").tag("result", "miss").register(meterRegistry);
+        verifiedMatches = Counter.builder("geocoding.reverse-cache.verified").tag("result", "match")
+                .register(meterRegistry);
+        verifiedMismatches = Counter.builder("geocoding.reverse-cache.verified").tag("result", "mismatch")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Cache key of the cell containing the point
+     */
+    public String cellKey(double latitude, double longitude) {
+        return GeoMath.geohash(latitude, longitude, precision);
+    }
+
+    /**
+     * Cached answer for the cell, or null on a miss
+     */
+    public Place get(String cellKey) {
+        if (!enabled) return null;
+
+        GeocodeCache.Entry entry = geocodeCache.get(GeocodeCache.reverseKey(cellKey));
+        if (entry == null || entry.getCity() == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Place(entry.getCity(), entry.getArea());
+    }
+
+    public void put(String cellKey, String city, String area) {
+        if (!enabled) return;
+
+        long ttlMillis = city == null || city.isBlank() ? emptyTtlMinutes * 60_000L : ttlHours * 3_600_000L;
+        geocodeCache.putPlace(GeocodeCache.reverseKey(cellKey), city, area, ttlMillis);
+    }
+
+    /**
+     * Whether this hit should be compared with a fresh upstream answer
+     */
+    public boolean shouldVerify() {
+        return verifySampleRate > 0 && ThreadLocalRandom.current().nextDouble() < verifySampleRate;
+    }
+
+    /**
+     * Record the outcome of comparing a cached cell answer with the exact upstream answer
+     */
+    public void recordVerification(Place cached, String city, String area) {
+        if (cached.getCity().equalsIgnoreCase(city) && cached.getArea().equalsIgnoreCase(area)) {
+            verifiedMatches.increment();
+        } else {
+            verifiedMismatches.increment();
+        }
+    }
+
+    public static class Place {
+        private final String city;
+        private final String area;
+
+        Place(String city, String area) {
+            this.city = city != null ? city : "";
+            this.area = area != null ? area : "";
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public String getArea() {
+            return area;
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.hospital.comparison.service;
 
 import com.hospital.comparison.dto.ReviewDTO;
+import com.hospital.comparison.entity.Hospital;
+import com.hospital.comparison.entity.HospitalRatingStats;
 import com.hospital.comparison.entity.Review;
+import com.hospital.comparison.event.ReviewAddedEvent;
+import com.hospital.comparison.repository.HospitalRatingStatsRepository;
+import com.hospital.comparison.repository.HospitalRepository;
 import com.hospital.comparison.repository.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -19,35 +26,88 @@ public class ReviewService {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private HospitalRatingStatsRepository ratingStatsRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DatabaseVendor databaseVendor;
+
+    /**
+     * Add a review and update the hospital's rating aggregates in the same transaction
+     */
+    @Transactional
+    public ReviewDTO addReview(ReviewDTO request) {
+        if (request.getHospitalId() == null) {
+            throw new IllegalArgumentException("Hospital ID is required");
+        }
+        if (request.getRating() == null || request.getRating() < 1 || request.getRating() > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+
+        Hospital hospital = hospitalRepository.findById(request.getHospitalId())
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Hospital not found with id: " + request.getHospitalId()));
+
+        Review review = new Review();
+        review.setHospital(hospital);
+        review.setRating(request.getRating());
+        review.setComment(request.getComment());
+        Review saved = reviewRepository.save(review);
+
+        if (databaseVendor.isPostgres()) {
+            ratingStatsRepository.recordReviewPostgres(hospital.getId(), saved.getRating());
+        } else {
+            ratingStatsRepository.recordReviewMySql(hospital.getId(), saved.getRating());
+        }
+        eventPublisher.publishEvent(new ReviewAddedEvent(hospital.getId(), saved.getRating()));
+
+        return mapToDTO(saved);
+    }
+
     /**
      * Get all reviews for a hospital
      */
     public List<ReviewDTO> getReviewsByHospital(Long hospitalId) {
         List<Review> reviews = reviewRepository.findByHospitalId(hospitalId);
 
-        return reviews.stream().map(review -> {
-            ReviewDTO dto = new ReviewDTO();
-            dto.setId(review.getId());
-            dto.setHospitalId(review.getHospital().getId());
-            dto.setHospitalName(review.getHospital().getName());
-            dto.setRating(review.getRating());
-            dto.setComment(review.getComment());
-            dto.setCreatedAt(review.getCreatedAt());
-            return dto;
-        }).collect(Collectors.toList());
+        return reviews.stream().map(this::mapToDTO).collect(Collectors.toList());
     }
 
     /**
      * Get average rating and count for a hospital
      */
     public Map<String, Object> getHospitalRatingStats(Long hospitalId) {
-        Double avgRating = reviewRepository.getAverageRatingByHospitalId(hospitalId);
-        Long count = reviewRepository.countByHospitalId(hospitalId);
+        HospitalRatingStats ratingStats = ratingStatsRepository.findById(hospitalId).orElse(null);
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("averageRating", avgRating != null ? avgRating : 0.0);
-        stats.put("totalReviews", count != null ? count : 0L);
+        stats.put("averageRating", ratingStats != null ? ratingStats.getAverageRating() : 0.0);
+        stats.put("totalReviews", ratingStats != null ? ratingStats.getReviewCount() : 0L);
+
+        Map<Integer, Long> distribution = new LinkedHashMap<>();
+        distribution.put(5, ratingStats != null ? ratingStats.getStar5() : 0L);
+        distribution.put(4, ratingStats != null ? ratingStats.getStar4() : 0L);
+        distribution.put(3, ratingStats != null ? ratingStats.getStar3() : 0L);
+        distribution.put(2, ratingStats != null ? ratingStats.getStar2() : 0L);
+        distribution.put(1, ratingStats != null ? ratingStats.getStar1() : 0L);
+        stats.put("ratingDistribution", distribution);
 
         return stats;
     }
+
+    private ReviewDTO mapToDTO(Review review) {
+        ReviewDTO dto = new ReviewDTO();
+        dto.setId(review.getId());
+        dto.setHospitalId(review.getHospital().getId());
+        dto.setHospitalName(review.getHospital().getName());
+        dto.setRating(review.getRating());
+        dto.setComment(review.getComment());
+        dto.setCreatedAt(review.getCreatedAt());
+        return dto;
+    }
 }
@@ -0,0 +1,289 @@
+package com.hospital.comparison.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Versioned schema migrations, applied at startup.
+ *
+ * Scripts are named V{version}__{description}.sql and are read from each entry of
+ * schema.migration.locations, where {vendor} stands for the database in use
+ * (mysql, postgresql): common scripts and vendor-only ones share one version
+ * sequence. Each version runs once, in order. Applied versions are recorded in the
+ * schema_version table with a SHA-256 checksum of the script; an applied script
+ * that was edited afterwards stops startup, so a change always ships as a new
+ * version.
+ *
+ * MySQL DDL is not transactional, and some of these changes were applied by hand
+ * before the migrations existed, so scripts must be safe to run on a schema that
+ * already has part of them: statements that add an index or a column are skipped
+ * when the database already has one by that name (checked through JDBC metadata),
+ * tables use CREATE TABLE IF NOT EXISTS and triggers are dropped before creation.
+ * A failing script stops startup and runs again from the top on the next start.
+ *
+ * Runs after the JPA EntityManagerFactory, so tables created by Hibernate
+ * (ddl-auto=update) exist before their indexes are added.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class SchemaMigrationService {
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final String INDEX_KIND = "(?:UNIQUE\\s+|SPATIAL\\s+|FULLTEXT\\s+)?(?:INDEX|KEY)";
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "CREATE\\s+" + INDEX_KIND + "\\s+(\\w+)\\s+ON\\s+(\\w+).*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ADD_INDEX = Pattern.compile(
+            "ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+" + INDEX_KIND + "\\s+(\\w+).*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ADD_COLUMN = Pattern.compile(
+            "ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+(?:COLUMN\\s+)?(?!(?:INDEX|KEY|UNIQUE|SPATIAL|FULLTEXT|CONSTRAINT|PRIMARY|FOREIGN)\\b)(\\w+)\\s.*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "version INT NOT NULL PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "checksum VARCHAR(64) NOT NULL, " +
+            "installed_at TIMESTAMP NOT NULL, " +
+            "execution_ms BIGINT NOT NULL)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseVendor databaseVendor;
+
+    @Value("${schema.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${schema.migration.locations:classpath:db/migration/common/,classpath:db/migration/{vendor}/}")
+    private String locations;
+
+    @PostConstruct
+    void init() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * Apply all pending scripts
+     * @return number of scripts applied
+     */
+    public int migrate() {
+        jdbcTemplate.execute(CREATE_VERSION_TABLE);
+
+        Map<Integer, String> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT version, checksum FROM schema_version", rs -> {
+            applied.put(rs.getInt(1), rs.getString(2));
+        });
+
+        int count = 0;
+        for (Script script : loadScripts(databaseVendor.name())) {
+            String checksum = applied.get(script.version);
+            if (checksum != null) {
+                if (!checksum.equals(script.checksum)) {
+                    throw new IllegalStateException("Migration V" + script.version + " (" + script.description
+                            + ") was changed after it was applied; add a new version instead");
+                }
+                continue;
+            }
+
+            System.out.println("Applying schema migration V" + script.version + ": " + script.description);
+            long started = System.currentTimeMillis();
+            try {
+                apply(script);
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("❌ Schema migration V" + script.version + " failed: " + e.getMessage());
+                throw new IllegalStateException("Schema migration V" + script.version + " failed", e);
+            }
+            long elapsed = System.currentTimeMillis() - started;
+            jdbcTemplate.update("INSERT INTO schema_version (version, description, checksum, installed_at, execution_ms) " +
+                            "VALUES (?, ?, ?, ?, ?)",
+                    script.version, script.description, script.checksum,
+                    new Timestamp(System.currentTimeMillis()), elapsed);
+            count++;
+        }
+
+        if (count > 0) {
+            System.out.println("✅ Applied " + count + " schema migration(s)");
+        }
+        return count;
+    }
+
+    private void apply(Script script) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String sql : splitStatements(script.sql)) {
+                String existing = existingObject(connection, sql);
+                if (existing != null) {
+                    System.out.println("  skipped, " + existing + " already exists");
+                    continue;
+                }
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * The index or column the statement adds when the database already has it, else null
+     */
+    String existingObject(Connection connection, String sql) throws SQLException {
+        Matcher createIndex = CREATE_INDEX.matcher(sql);
+        if (createIndex.matches()) {
+            return hasIndex(connection, createIndex.group(2), createIndex.group(1)) ? "index " + createIndex.group(1) : null;
+        }
+        Matcher addIndex = ADD_INDEX.matcher(sql);
+        if (addIndex.matches()) {
+            return hasIndex(connection, addIndex.group(1), addIndex.group(2)) ? "index " + addIndex.group(2) : null;
+        }
+        Matcher addColumn = ADD_COLUMN.matcher(sql);
+        if (addColumn.matches()) {
+            return hasColumn(connection, addColumn.group(1), addColumn.group(2))
+                    ? "column " + addColumn.group(1) + "." + addColumn.group(2) : null;
+        }
+        return null;
+    }
+
+    private boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        for (String tableName : tableNameCandidates(connection, table)) {
+            try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), connection.getSchema(),
+                    tableName, false, true)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        for (String tableName : tableNameCandidates(connection, table)) {
+            try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), connection.getSchema(),
+                    tableName, null)) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The name as written and as the database folds unquoted identifiers
+     */
+    private List<String> tableNameCandidates(Connection connection, String table) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        String folded = meta.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT)
+                : meta.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        return folded.equals(table) ? List.of(table) : List.of(table, folded);
+    }
+
+    List<Script> loadScripts(String vendor) {
+        Map<Integer, Script> scripts = new TreeMap<>();
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        for (String location : locations.split(",")) {
+            String resolved = location.trim().replace("{vendor}", vendor);
+            if (resolved.isEmpty()) continue;
+            if (!resolved.endsWith("/")) resolved += "/";
+
+            Resource[] resources;
+            try {
+                resources = resolver.getResources(resolved + "V*__*.sql");
+            } catch (IOException e) {
+                // A vendor folder that does not exist has no scripts
+                continue;
+            }
+            for (Resource resource : resources) {
+                Matcher name = SCRIPT_NAME.matcher(Objects.requireNonNull(resource.getFilename()));
+                if (!name.matches()) {
+                    throw new IllegalStateException("Migration file name must be V{version}__{description}.sql: "
+                            + resource.getFilename());
+                }
+                Script script = new Script(Integer.parseInt(name.group(1)), name.group(2).replace('_', ' '), resource);
+                Script clash = scripts.put(script.version, script);
+                if (clash != null) {
+                    throw new IllegalStateException("Two migrations have version " + script.version + ": "
+                            + clash.resource.getFilename() + ", " + resource.getFilename());
+                }
+            }
+        }
+        return new ArrayList<>(scripts.values());
+    }
+
+    /**
+     * Statements of a script: split on semicolons outside quotes, with -- comments removed
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (!quoted && c == '-' && i + 1 < script.length() && script.charAt(i + 1) == '-') {
+                while (i < script.length() && script.charAt(i) != '\n') i++;
+                current.append('\n');
+                continue;
+            }
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (!quoted && c == ';') {
+                addStatement(statements, current);
+            } else {
+                current.append(c);
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    static class Script {
+        final int version;
+        final String description;
+        final Resource resource;
+        final String sql;
+        final String checksum;
+
+        Script(int version, String description, Resource resource) {
+            this.version = version;
+            this.description = description;
+            this.resource = resource;
+            try (InputStream in = resource.getInputStream()) {
+                byte[] content = in.readAllBytes();
+                this.sql = new String(content, StandardCharsets.UTF_8);
+                this.checksum = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read migration " + resource.getFilename(), e);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
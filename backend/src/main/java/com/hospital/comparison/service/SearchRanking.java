@@ -0,0 +1,120 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.dto.HospitalSearchDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Ranking, keyset cursors and bounded top-K selection for hospital search.
+ *
+ * Results are ordered nearest first, then cheapest, then best rated, with the
+ * hospital id as the final tie-break so the order is total and a cursor (the key
+ * of the last returned row) identifies a stable position between pages.
+ */
+final class SearchRanking {
+
+    private SearchRanking() {
+    }
+
+    static int compare(double distance1, double price1, double rating1, long id1,
+            double distance2, double price2, double rating2, long id2) {
+        int distanceComp = Double.compare(distance1, distance2);
+        if (distanceComp != 0) return distanceComp;
+        int priceComp = Double.compare(price1, price2);
+        if (priceComp != 0) return priceComp;
+        int ratingComp = Double.compare(rating2, rating1);
+        if (ratingComp != 0) return ratingComp;
+        return Long.compare(id1, id2);
+    }
+
+    /**
+     * Ranking key of one candidate. payload lets callers find the row the key was
+     * built from (an offering index, a list position) after selection.
+     */
+    static final class Key implements Comparable<Key> {
+        final double distance;
+        final double price;
+        final double rating;
+        final long hospitalId;
+        final int payload;
+
+        Key(double distance, double price, double rating, long hospitalId, int payload) {
+            this.distance = distance;
+            this.price = price;
+            this.rating = rating;
+            this.hospitalId = hospitalId;
+            this.payload = payload;
+        }
+
+        static Key of(HospitalSearchDTO dto, int payload) {
+            return new Key(dto.getDistance(), dto.getPrice(), dto.getAverageRating(), dto.getId(), payload);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return compare(distance, price, rating, hospitalId,
+                    other.distance, other.price, other.rating, other.hospitalId);
+        }
+    }
+
+    /**
+     * The keys of one page, in order, and the cursor of the page after it (null if none)
+     */
+    static final class Selection {
+        final List<Key> keys;
+        final String nextCursor;
+
+        Selection(List<Key> keys, String nextCursor) {
+            this.keys = keys;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    /**
+     * Select the first limit keys strictly after the cursor key, using a bounded
+     * max-heap: O(n log limit) time and O(limit) space instead of a full sort.
+     */
+    static Selection select(Iterable<Key> candidates, int limit, Key after) {
+        // One extra slot tells whether another page exists
+        int capacity = limit == Integer.MAX_VALUE ? limit : limit + 1;
+        PriorityQueue<Key> heap = new PriorityQueue<>(Math.min(capacity, 64), Comparator.reverseOrder());
+
+        for (Key key : candidates) {
+            if (after != null && key.compareTo(after) <= 0) continue;
+
+            if (heap.size() < capacity) {
+                heap.add(key);
+            } else if (key.compareTo(heap.peek()) < 0) {
+                heap.poll();
+                heap.add(key);
+            }
+        }
+
+        List<Key> keys = new ArrayList<>(heap);
+        keys.sort(null);
+
+        String nextCursor = null;
+        if (keys.size() > limit) {
+            keys = keys.subList(0, limit);
+            nextCursor = encodeCursor(keys.get(limit - 1));
+        }
+        return new Selection(keys, nextCursor);
+    }
+
+    static String encodeCursor(Key key) {
+        String raw = key.distance + ":" + key.price + ":" + key.rating + ":" + key.hospitalId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Key decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            return new Key(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                    Double.parseDouble(parts[2]), Long.parseLong(parts[3]), -1);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+    }
+}
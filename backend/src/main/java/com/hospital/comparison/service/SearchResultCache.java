@@ -0,0 +1,241 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.dto.HospitalSearchDTO;
+import com.hospital.comparison.dto.HospitalSearchPageDTO;
+import com.hospital.comparison.event.HospitalChangedEvent;
+import com.hospital.comparison.event.HospitalServiceChangedEvent;
+import com.hospital.comparison.event.ReviewAddedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded LRU cache of hospital search results.
+ *
+ * GPS searches are keyed by a quantized geo cell instead of the exact fix: the
+ * cached entry holds the results for the cell center with the radius widened by
+ * half the cell diagonal, and every request re-filters that superset against its
+ * own coordinates. Entries remember which hospitals they contain so price,
+ * availability, waiting time and rating changes only drop the affected entries.
+ *
+ * Degraded results (the city-only fallback used while the geocoder is failing)
+ * are kept for degraded-ttl-seconds only, long enough to spare the geocoder a
+ * burst of identical searches but not to serve the fallback once it recovers.
+ */
+@Service
+public class SearchResultCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${search.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${search.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${search.cache.degraded-ttl-seconds:15}")
+    private long degradedTtlSeconds;
+
+    @Value("${search.cache.cell-size-degrees:0.01}")
+    private double cellSizeDegrees;
+
+    private Map<String, CachedResult> entries;
+
+    // Bumped by every invalidation so a load that raced with a write is not stored
+    private long generation = 0;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+    private Counter invalidations;
+
+    @PostConstruct
+    void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        hits = Counter.builder("search.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("search.cache.requests").tag("result", "miss").register(meterRegistry);
+        evictions = Counter.builder("search.cache.evictions").register(meterRegistry);
+        invalidations = Counter.builder("search.cache.invalidations").register(meterRegistry);
+        Gauge.builder("search.cache.size", this, SearchResultCache::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Quantize a GPS fix to the center of its cache cell. The returned radius covers
+     * every point of the requested circle from anywhere inside the cell.
+     */
+    public Cell cellFor(double latitude, double longitude, double radiusKm) {
+        long row = (long) Math.floor(latitude / cellSizeDegrees);
+        long col = (long) Math.floor(longitude / cellSizeDegrees);
+        double centerLat = (row + 0.5) * cellSizeDegrees;
+        double centerLon = (col + 0.5) * cellSizeDegrees;
+        double halfDiagonalKm = GeoMath.haversineKm(centerLat, centerLon,
+                centerLat + cellSizeDegrees / 2, centerLon + cellSizeDegrees / 2);
+        return new Cell(row, col, centerLat, centerLon, radiusKm + halfDiagonalKm);
+    }
+
+    public String key(Long serviceId, String city, String area, Double radiusKm, Cell cell) {
+        StringBuilder key = new StringBuilder()
+                .append(serviceId).append('|')
+                .append(normalize(city)).append('|')
+                .append(normalize(area)).append('|')
+                .append(radiusKm);
+        if (cell != null) {
+            key.append("|cell:").append(cell.row).append(':').append(cell.col);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return the cached results for the key, computing and storing them on a miss.
+     * Empty results are not stored since they are also what a failed search returns.
+     */
+    public List<HospitalSearchDTO> getOrCompute(String key, Long serviceId,
+            Supplier<HospitalSearchPageDTO> loader) {
+        long now = System.currentTimeMillis();
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+            CachedResult entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                return entry.results;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+
+        misses.increment();
+        HospitalSearchPageDTO page = loader.get();
+        List<HospitalSearchDTO> results = page.getResults();
+        if (!results.isEmpty()) {
+            long ttlMillis = (page.isDegraded() ? degradedTtlSeconds : ttlSeconds) * 1000;
+            Set<Long> hospitalIds = results.stream()
+                    .map(HospitalSearchDTO::getId)
+                    .collect(Collectors.toSet());
+            CachedResult entry = new CachedResult(Collections.unmodifiableList(new ArrayList<>(results)), serviceId,
+                    hospitalIds, now + ttlMillis);
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, entry);
+                }
+            }
+        }
+        return results;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHospitalServiceChanged(HospitalServiceChangedEvent event) {
+        if (event.isAdded() || event.isRemoved()) {
+            // An added or removed offering can change the membership of any result for the service
+            invalidate(entry -> Objects.equals(entry.serviceId, event.getServiceId()));
+        } else {
+            invalidate(entry -> Objects.equals(entry.serviceId, event.getServiceId())
+                    && entry.hospitalIds.contains(event.getHospitalId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewAdded(ReviewAddedEvent event) {
+        invalidate(entry -> entry.hospitalIds.contains(event.getHospitalId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHospitalChanged(HospitalChangedEvent event) {
+        // Moved, added or renamed hospitals can enter any result; these writes are rare
+        invalidate(entry -> true);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        invalidate(entry -> true);
+    }
+
+    private synchronized void invalidate(Predicate<CachedResult> predicate) {
+        generation++;
+        Iterator<CachedResult> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (predicate.test(it.next())) {
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+
+    public static class Cell {
+        private final long row;
+        private final long col;
+        private final double latitude;
+        private final double longitude;
+        private final double radiusKm;
+
+        Cell(long row, long col, double latitude, double longitude, double radiusKm) {
+            this.row = row;
+            this.col = col;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusKm = radiusKm;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public double getRadiusKm() {
+            return radiusKm;
+        }
+    }
+
+    private static class CachedResult {
+        final List<HospitalSearchDTO> results;
+        final Long serviceId;
+        final Set<Long> hospitalIds;
+        final long expiresAt;
+
+        CachedResult(List<HospitalSearchDTO> results, Long serviceId, Set<Long> hospitalIds, long expiresAt) {
+            this.results = results;
+            this.serviceId = serviceId;
+            this.hospitalIds = hospitalIds;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
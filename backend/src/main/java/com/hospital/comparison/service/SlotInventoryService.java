@@ -0,0 +1,254 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.entity.AppointmentSlot;
+import com.hospital.comparison.entity.AppointmentSlotId;
+import com.hospital.comparison.repository.AppointmentRepository;
+import com.hospital.comparison.repository.AppointmentSlotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Booking capacity per (hospital, service, day).
+ *
+ * Each slot is mirrored in memory as a CAS counter of taken places, so bookers
+ * for a sold-out slot are turned away without touching the database. A place
+ * taken in memory is then taken in the appointment_slot row with a conditional
+ * UPDATE (booked + n <= capacity) inside the booking transaction: that only
+ * locks the one row, and because the database has the final say no instance can
+ * oversell even when its memory lags behind the others. The row version moves
+ * with every change, so JPA writes to a slot (capacity edits) are checked
+ * optimistically against concurrent bookings.
+ *
+ * Places taken in memory are given back when the booking transaction does not
+ * commit; the database side rolls back with it. Memory entries are re-read from
+ * the row every refreshSeconds to pick up bookings made by other instances.
+ *
+ * A cancelled appointment gives its place back through {@link #release}. The row is
+ * counted from the appointment table only when it is created; appointments deleted
+ * or cancelled directly in the database keep their place until booked is corrected
+ * by hand.
+ */
+@Service
+public class SlotInventoryService {
+
+    @Autowired
+    private AppointmentSlotRepository slotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DatabaseVendor databaseVendor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${appointments.slot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${appointments.slot.default-capacity:20}")
+    private int defaultCapacity;
+
+    @Value("${appointments.slot.refresh-seconds:30}")
+    private long refreshSeconds;
+
+    @Value("${appointments.slot.max-cached:10000}")
+    private int maxCached;
+
+    private final Map<AppointmentSlotId, Slot> slots = new ConcurrentHashMap<>();
+
+    private Counter reserved;
+    private Counter rejectedInMemory;
+    private Counter rejectedInDatabase;
+    private Counter released;
+
+    @PostConstruct
+    void init() {
+        reserved = Counter.builder("appointments.slot.reservations").tag("result", "reserved").register(meterRegistry);
+        rejectedInMemory = Counter.builder("appointments.slot.reservations").tag("result", "full")
+                .register(meterRegistry);
+        rejectedInDatabase = Counter.builder("appointments.slot.reservations").tag("result", "full-in-database")
+                .register(meterRegistry);
+        released = Counter.builder("appointments.slot.released").register(meterRegistry);
+        Gauge.builder("appointments.slot.cached", slots, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Take count places in the slot for the current transaction. The places are
+     * given back if the transaction rolls back.
+     * @throws IllegalArgumentException when the slot does not have count places left
+     */
+    public void reserve(Long hospitalId, Long serviceId, LocalDate day, int count) {
+        if (!enabled) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Slot reservations must run inside a transaction");
+        }
+
+        AppointmentSlotId id = new AppointmentSlotId(hospitalId, serviceId, day);
+        Slot slot = slot(id);
+        if (!slot.tryTake(count)) {
+            rejectedInMemory.increment();
+            throw fullyBooked(day);
+        }
+
+        boolean taken = false;
+        try {
+            taken = slotRepository.reserve(hospitalId, serviceId, day, count) == 1;
+        } finally {
+            if (!taken) {
+                slot.give(count);
+            }
+        }
+        if (!taken) {
+            // Filled by another instance or capacity lowered: drop the entry so it is re-read
+            slots.remove(id, slot);
+            rejectedInDatabase.increment();
+            throw fullyBooked(day);
+        }
+
+        reserved.increment(count);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    slot.give(count);
+                    released.increment(count);
+                }
+            }
+        });
+    }
+
+    /**
+     * Give count places back in the slot for the current transaction (cancellation).
+     * Memory follows once the transaction commits.
+     */
+    public void release(Long hospitalId, Long serviceId, LocalDate day, int count) {
+        if (!enabled) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Slot releases must run inside a transaction");
+        }
+
+        AppointmentSlotId id = new AppointmentSlotId(hospitalId, serviceId, day);
+        if (slotRepository.release(hospitalId, serviceId, day, count) == 0) {
+            // No row (booked before slots existed) or already short: nothing to give back
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Slot slot = slots.get(id);
+                if (slot != null) {
+                    slot.give(count);
+                }
+                released.increment(count);
+            }
+        });
+    }
+
+    /**
+     * Capacity and bookings of the slot, from the database
+     */
+    public Map<String, Object> getAvailability(Long hospitalId, Long serviceId, LocalDate day) {
+        AppointmentSlot row = slotRepository.findById(new AppointmentSlotId(hospitalId, serviceId, day)).orElse(null);
+        int capacity = row != null ? row.getCapacity() : defaultCapacity;
+        long booked = row != null ? row.getBooked()
+                : appointmentRepository.countByHospitalServiceAndDate(hospitalId, serviceId,
+                        day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+
+        Map<String, Object> availability = new HashMap<>();
+        availability.put("hospitalId", hospitalId);
+        availability.put("serviceId", serviceId);
+        availability.put("date", day.toString());
+        availability.put("capacity", capacity);
+        availability.put("booked", booked);
+        availability.put("available", Math.max(capacity - booked, 0));
+        return availability;
+    }
+
+    /**
+     * Memory entry for the slot, (re)loaded from its row when missing or stale.
+     * The row is created on first use.
+     */
+    private Slot slot(AppointmentSlotId id) {
+        Slot slot = slots.get(id);
+        long now = System.currentTimeMillis();
+        if (slot != null && now - slot.loadedAt < refreshSeconds * 1000) {
+            return slot;
+        }
+
+        LocalDate day = id.getSlotDate();
+        if (databaseVendor.isPostgres()) {
+            slotRepository.createIfAbsentPostgres(id.getHospitalId(), id.getServiceId(), day, defaultCapacity,
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        } else {
+            slotRepository.createIfAbsentMySql(id.getHospitalId(), id.getServiceId(), day, defaultCapacity,
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        }
+        AppointmentSlot row = slotRepository.findById(id)
+                .orElseThrow(() -> new IllegalStateException("Slot row missing after create: " + id));
+
+        if (slots.size() >= maxCached) {
+            evictPastSlots();
+        }
+        Slot loaded = new Slot(row.getCapacity(), row.getBooked(), now);
+        // Concurrent loaders of the same slot must share one counter, so the first one wins
+        if (slot == null ? slots.putIfAbsent(id, loaded) == null : slots.replace(id, slot, loaded)) {
+            return loaded;
+        }
+        Slot current = slots.get(id);
+        return current != null ? current : loaded;
+    }
+
+    private void evictPastSlots() {
+        LocalDate today = LocalDate.now();
+        slots.keySet().removeIf(id -> id.getSlotDate().isBefore(today));
+        if (slots.size() >= maxCached) {
+            // Still full of future slots: start over, entries reload on demand
+            slots.clear();
+        }
+    }
+
+    private IllegalArgumentException fullyBooked(LocalDate day) {
+        return new IllegalArgumentException("No appointments left for this service on " + day);
+    }
+
+    /**
+     * In-memory mirror of one slot row
+     */
+    private static final class Slot {
+        final int capacity;
+        final long loadedAt;
+        final AtomicInteger taken;
+
+        Slot(int capacity, int booked, long loadedAt) {
+            this.capacity = capacity;
+            this.loadedAt = loadedAt;
+            this.taken = new AtomicInteger(booked);
+        }
+
+        boolean tryTake(int count) {
+            while (true) {
+                int current = taken.get();
+                if (current + count > capacity) return false;
+                if (taken.compareAndSet(current, current + count)) return true;
+            }
+        }
+
+        void give(int count) {
+            taken.addAndGet(-count);
+        }
+    }
+}
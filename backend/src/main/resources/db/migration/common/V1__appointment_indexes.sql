@@ -0,0 +1,13 @@
+-- Access paths of AppointmentRepository and AppointmentSlotRepository
+
+-- Keyset-paginated listings: WHERE <owner> = ? AND (appointment_date, appointment_id) < cursor
+-- ORDER BY appointment_date DESC, appointment_id DESC reads one short backward range per page
+CREATE INDEX idx_appointment_hospital_date ON appointment (hospital_id, appointment_date, appointment_id);
+CREATE INDEX idx_appointment_phone_date ON appointment (patient_phone, appointment_date, appointment_id);
+CREATE INDEX idx_appointment_user_date ON appointment (user_id, appointment_date, appointment_id);
+
+-- Bookings of one hospital service on one day (slot creation and availability), covering status
+CREATE INDEX idx_appointment_service_day ON appointment (hospital_id, service_id, appointment_date, status);
+
+-- findByStatus
+CREATE INDEX idx_appointment_status_date ON appointment (status, appointment_date);
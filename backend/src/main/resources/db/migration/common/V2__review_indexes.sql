@@ -0,0 +1,5 @@
+-- Access paths of ReviewRepository
+
+-- Reviews of a hospital newest first; rating is included so the average and count
+-- per hospital are answered from the index alone
+CREATE INDEX idx_review_hospital_created ON review (hospital_id, created_at, rating);
@@ -0,0 +1,7 @@
+-- Access paths of HospitalServiceRepository
+
+-- Offerings of a service (search), optionally narrowed to a set of hospitals or to available ones
+CREATE INDEX idx_hospital_service_service ON hospital_service (service_id, hospital_id, availability);
+
+-- Offerings of a hospital and the (hospital, service) lookup used by booking
+CREATE INDEX idx_hospital_service_hospital ON hospital_service (hospital_id, service_id);
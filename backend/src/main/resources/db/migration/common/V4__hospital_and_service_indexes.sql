@@ -0,0 +1,10 @@
+-- Access paths of HospitalRepository and ServiceRepository
+
+-- Case-insensitive city filters (LOWER(h.city) = LOWER(?)); functional index, MySQL 8.0.13+
+CREATE INDEX idx_hospital_city_lower ON hospital ((LOWER(city)));
+
+-- Exact city filter (getHospitalCoordinates) and the distinct city list
+CREATE INDEX idx_hospital_city ON hospital (city);
+
+-- findByCategory
+CREATE INDEX idx_service_category ON service (category);
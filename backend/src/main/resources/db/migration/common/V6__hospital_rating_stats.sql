@@ -0,0 +1,15 @@
+-- Denormalized per-hospital review aggregates read by search and the rating stats endpoint
+-- Maintained by ReviewService.addReview; backfilled from review by RatingStatsRebuildJob
+-- at startup while the table is empty
+
+CREATE TABLE IF NOT EXISTS hospital_rating_stats (
+    hospital_id BIGINT PRIMARY KEY,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    star_1 BIGINT NOT NULL DEFAULT 0,
+    star_2 BIGINT NOT NULL DEFAULT 0,
+    star_3 BIGINT NOT NULL DEFAULT 0,
+    star_4 BIGINT NOT NULL DEFAULT 0,
+    star_5 BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (hospital_id) REFERENCES hospital(hospital_id) ON DELETE CASCADE
+);
@@ -0,0 +1,14 @@
+-- Booking capacity per hospital service and day, used by SlotInventoryService
+-- Rows are created on first booking with appointments.slot.default-capacity and the
+-- day's existing bookings; raise capacity per row to open more places
+
+CREATE TABLE IF NOT EXISTS appointment_slot (
+    hospital_id BIGINT NOT NULL,
+    service_id BIGINT NOT NULL,
+    slot_date DATE NOT NULL,
+    capacity INT NOT NULL,
+    booked INT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (hospital_id, service_id, slot_date),
+    FOREIGN KEY (hospital_id) REFERENCES hospital(hospital_id) ON DELETE CASCADE
+);
@@ -0,0 +1,24 @@
+-- Add an indexed geographic point to the hospital table for radius searches
+-- Requires MySQL 8.0.13+ (SRID column attribute, ST_Distance_Sphere on SRID 4326)
+-- latitude/longitude stay the source of truth; the triggers below keep location in sync
+
+ALTER TABLE hospital ADD COLUMN location POINT SRID 4326 NULL;
+
+UPDATE hospital
+SET location = ST_SRID(POINT(COALESCE(longitude, 0), COALESCE(latitude, 0)), 4326);
+
+-- SPATIAL INDEX requires a NOT NULL column; rows without coordinates get POINT(0 0)
+-- and are still excluded by the latitude/longitude IS NOT NULL filters
+ALTER TABLE hospital MODIFY COLUMN location POINT NOT NULL SRID 4326;
+
+ALTER TABLE hospital ADD SPATIAL INDEX idx_hospital_location (location);
+
+DROP TRIGGER IF EXISTS hospital_location_insert;
+CREATE TRIGGER hospital_location_insert BEFORE INSERT ON hospital
+FOR EACH ROW
+    SET NEW.location = ST_SRID(POINT(COALESCE(NEW.longitude, 0), COALESCE(NEW.latitude, 0)), 4326);
+
+DROP TRIGGER IF EXISTS hospital_location_update;
+CREATE TRIGGER hospital_location_update BEFORE UPDATE ON hospital
+FOR EACH ROW
+    SET NEW.location = ST_SRID(POINT(COALESCE(NEW.longitude, 0), COALESCE(NEW.latitude, 0)), 4326);
@@ -0,0 +1,148 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.dto.BulkImportResultDTO;
+import com.hospital.comparison.repository.HospitalServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AppointmentBulkImportServiceTest {
+
+    private static final String DATE = LocalDate.now().plusDays(3) + "T10:00";
+
+    private AppointmentBulkImportService service;
+    private JdbcTemplate jdbcTemplate;
+    private SlotInventoryService slotInventoryService;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        service = new AppointmentBulkImportService();
+        HospitalServiceRepository offerings = mock(HospitalServiceRepository.class);
+        when(offerings.findBookingRows()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, 1L, "City General Hospital", "Cardiology", true}));
+        jdbcTemplate = mock(JdbcTemplate.class);
+        slotInventoryService = mock(SlotInventoryService.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(call ->
+                ((TransactionCallback<Object>) call.getArgument(0)).doInTransaction(null));
+
+        ReflectionTestUtils.setField(service, "hospitalServiceRepository", offerings);
+        ReflectionTestUtils.setField(service, "slotInventoryService", slotInventoryService);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxRows", 3);
+        ReflectionTestUtils.setField(service, "maxReportedErrors", 100);
+    }
+
+    @Test
+    void splitCsvHandlesQuotedFields() {
+        assertThat(AppointmentBulkImportService.splitCsv("1,2,\"Doe, John\",\"say \"\"hi\"\"\",x"))
+                .containsExactly("1", "2", "Doe, John", "say \"hi\"", "x");
+        assertThat(AppointmentBulkImportService.splitCsv("a,,b")).containsExactly("a", "", "b");
+        assertThatThrownBy(() -> AppointmentBulkImportService.splitCsv("1,\"open"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void quotedNameWithCommaIsAccepted() {
+        BulkImportResultDTO result = service.importAppointments(new StringReader(
+                "hospitalId,serviceId,userId,patientName,patientPhone,appointmentDate\n" +
+                "1,1,7,\"Doe, John\",9876543210," + DATE + "\n"));
+
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejected()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rowsOverTheCapAreRejectedWithoutFailingCommittedBatches() {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            csv.append("1,1,7,Patient ").append(i).append(",9876543210,").append(DATE).append('\n');
+        }
+
+        BulkImportResultDTO result = service.importAppointments(new StringReader(csv.toString()));
+
+        assertThat(result.getAccepted()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BulkImportResultDTO.RowError::getLine).containsExactly(4, 5);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void interruptedUploadKeepsCommittedRows() {
+        String rows = "1,1,7,A,9876543210," + DATE + "\n1,1,7,B,9876543210," + DATE + "\n1,1,7,C,9876543210," + DATE + "\n";
+        Reader breaking = new Reader() {
+            private final StringReader delegate = new StringReader(rows);
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = delegate.read(buffer, offset, length);
+                if (read == -1) throw new IOException("connection reset");
+                return read;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        BulkImportResultDTO result = service.importAppointments(breaking);
+
+        assertThat(result.getAccepted()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BulkImportResultDTO.RowError::getMessage)
+                .anyMatch(message -> message.contains("connection reset"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void thousandsOfRowsGoOutInOneJdbcBatchPerBatchSize() {
+        int rows = 5000;
+        int batchSize = 500;
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "maxRows", rows);
+        StringBuilder csv = new StringBuilder("hospitalId,serviceId,userId,patientName,patientPhone,appointmentDate\n");
+        for (int i = 0; i < rows; i++) {
+            // Five appointment days, so each batch reserves a handful of slots
+            String date = LocalDate.now().plusDays(1 + i % 5) + "T10:00";
+            csv.append("1,1,").append(i).append(",Patient ").append(i).append(",9876543210,").append(date).append('\n');
+        }
+
+        long started = System.nanoTime();
+        BulkImportResultDTO result = service.importAppointments(new StringReader(csv.toString()));
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(result.getAccepted()).isEqualTo(rows);
+        assertThat(result.getRejected()).isZero();
+        ArgumentCaptor<Collection<?>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(rows / batchSize)).batchUpdate(anyString(), batches.capture(), eq(batchSize),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(batches.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSize(batchSize));
+        verify(transactionTemplate, times(rows / batchSize)).execute(any());
+        // One reservation per (slot, batch), not per row
+        verify(slotInventoryService, times(rows / batchSize * 5)).reserve(eq(1L), eq(1L), any(), eq(batchSize / 5));
+        System.out.println("Bulk import: " + rows + " rows in " + elapsedMillis + " ms ("
+                + rows * 1000L / Math.max(1, elapsedMillis) + " rows/s, database mocked)");
+    }
+}
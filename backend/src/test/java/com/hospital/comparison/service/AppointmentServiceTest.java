@@ -0,0 +1,96 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.dto.AppointmentPageDTO;
+import com.hospital.comparison.dto.AppointmentResponseDTO;
+import com.hospital.comparison.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AppointmentServiceTest {
+
+    private AppointmentService service;
+    private final List<AppointmentResponseDTO> stored = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Several appointments share a time, so the id has to break ties across page boundaries
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 9, 0);
+        for (long id = 1; id <= 23; id++) {
+            AppointmentResponseDTO row = new AppointmentResponseDTO();
+            row.setId(id);
+            row.setUserId(7L);
+            row.setAppointmentDate(base.plusHours(id / 3));
+            stored.add(row);
+        }
+
+        AppointmentRepository repository = mock(AppointmentRepository.class);
+        when(repository.findPageByUserId(eq(7L), any(), anyLong(), any())).thenAnswer(call -> {
+            LocalDateTime afterDate = call.getArgument(1);
+            long afterId = call.getArgument(2);
+            Pageable page = call.getArgument(3);
+            // Same order and condition as the keyset query: (date, id) descending, strictly after the cursor
+            return stored.stream()
+                    .filter(row -> row.getAppointmentDate().isBefore(afterDate)
+                            || (row.getAppointmentDate().equals(afterDate) && row.getId() < afterId))
+                    .sorted(Comparator.comparing(AppointmentResponseDTO::getAppointmentDate)
+                            .thenComparing(AppointmentResponseDTO::getId).reversed())
+                    .limit(page.getPageSize())
+                    .collect(Collectors.toList());
+        });
+
+        service = new AppointmentService();
+        ReflectionTestUtils.setField(service, "appointmentRepository", repository);
+        ReflectionTestUtils.setField(service, "defaultPageLimit", 100);
+        ReflectionTestUtils.setField(service, "maxPageLimit", 500);
+    }
+
+    @Test
+    void followingTheCursorReturnsEveryAppointmentOnceNewestFirst() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            AppointmentPageDTO page = service.getAppointmentsByUserId(7L, 5, cursor);
+            assertThat(page.getAppointments()).hasSizeLessThanOrEqualTo(5);
+            page.getAppointments().forEach(row -> ids.add(row.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(5);
+        List<Long> expected = new ArrayList<>();
+        for (long id = 23; id >= 1; id--) expected.add(id);
+        assertThat(ids).isEqualTo(expected);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        AppointmentPageDTO page = service.getAppointmentsByUserId(7L, null, null);
+        assertThat(page.getAppointments()).hasSize(23);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void invalidCursorAndLimitAreRejected() {
+        assertThatThrownBy(() -> service.getAppointmentsByUserId(7L, 5, "not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getAppointmentsByUserId(7L, 0, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getAppointmentsByUserId(7L, 501, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
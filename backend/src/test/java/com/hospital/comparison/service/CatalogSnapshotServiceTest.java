@@ -0,0 +1,108 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.event.HospitalChangedEvent;
+import com.hospital.comparison.repository.HospitalRatingStatsRepository;
+import com.hospital.comparison.repository.HospitalRepository;
+import com.hospital.comparison.repository.HospitalServiceRepository;
+import com.hospital.comparison.entity.HospitalRatingStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class CatalogSnapshotServiceTest {
+
+    private CatalogSnapshotService service;
+    private HospitalRepository hospitalRepository;
+
+    @BeforeEach
+    void setUp() {
+        hospitalRepository = mock(HospitalRepository.class);
+        List<Object[]> hospitals = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            hospitals.add(new Object[] { id, "Hospital " + id, "Street " + id, "Pune", 18.5, 73.8, null, null });
+        }
+        when(hospitalRepository.findCatalogRows()).thenReturn(hospitals);
+        HospitalServiceRepository hospitalServiceRepository = mock(HospitalServiceRepository.class);
+        when(hospitalServiceRepository.findCatalogRows()).thenReturn(List.of());
+        HospitalRatingStatsRepository ratingStatsRepository = mock(HospitalRatingStatsRepository.class);
+        when(ratingStatsRepository.findAll()).thenReturn(List.of());
+
+        service = new CatalogSnapshotService();
+        ReflectionTestUtils.setField(service, "hospitalRepository", hospitalRepository);
+        ReflectionTestUtils.setField(service, "hospitalServiceRepository", hospitalServiceRepository);
+        ReflectionTestUtils.setField(service, "ratingStatsRepository", ratingStatsRepository);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "rebuildDelayMillis", 100L);
+        service.init();
+        service.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private HospitalChangedEvent moved(long id) {
+        return new HospitalChangedEvent(id, 18.6, 73.9, "Pune", false);
+    }
+
+    @Test
+    void hospitalWritesWhileSuspendedCostOneRebuild() {
+        service.suspendRebuilds();
+        for (long id = 1; id <= 3; id++) {
+            service.onHospitalChanged(moved(id));
+        }
+        verify(hospitalRepository, times(1)).findCatalogRows();
+
+        service.resumeRebuilds();
+        verify(hospitalRepository, timeout(2000).times(2)).findCatalogRows();
+    }
+
+    @Test
+    void burstOfHospitalWritesCostsOneBackgroundRebuild() throws InterruptedException {
+        for (long id = 1; id <= 3; id++) {
+            service.onHospitalChanged(moved(id));
+        }
+        verify(hospitalRepository, times(1)).findCatalogRows();
+
+        verify(hospitalRepository, timeout(2000).times(2)).findCatalogRows();
+        Thread.sleep(300);
+        verify(hospitalRepository, times(2)).findCatalogRows();
+    }
+
+    @Test
+    void ratingUpdateLeavesOtherChunksShared() {
+        List<Object[]> hospitals = new ArrayList<>();
+        for (long id = 1; id <= CatalogSnapshot.RATING_CHUNK + 1; id++) {
+            hospitals.add(new Object[] { id, "Hospital " + id, "Street " + id, "Pune", 18.5, 73.8, null, 3.0 });
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.build(hospitals, List.of(),
+                List.of(new HospitalRatingStats(1L, 8L, 2L, 0L, 0L, 0L, 2L, 0L)));
+        int last = snapshot.ordinalOf((long) CatalogSnapshot.RATING_CHUNK + 1);
+
+        CatalogSnapshot updated = snapshot.withRating(last, 5L, 1L);
+
+        assertThat(updated.averageRating(last)).isEqualTo(5.0);
+        assertThat(updated.reviewCount(last)).isEqualTo(1);
+        assertThat(snapshot.averageRating(last)).isEqualTo(3.0);
+        assertThat(updated.averageRating(0)).isEqualTo(4.0);
+        assertThat(updated.reviewCount(0)).isEqualTo(2);
+    }
+
+    @Test
+    void resumeWithoutWritesDoesNotRebuild() {
+        service.suspendRebuilds();
+        service.resumeRebuilds();
+
+        verify(hospitalRepository, times(1)).findCatalogRows();
+        service.onHospitalChanged(moved(1));
+        verify(hospitalRepository, timeout(2000).times(2)).findCatalogRows();
+    }
+}
@@ -0,0 +1,66 @@
+package com.hospital.comparison.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DistanceKernelTest {
+
+    private static int[] hits(double refLat, double refLon, double[] latitudes, double[] longitudes,
+            double radiusKm, boolean prefilter) {
+        int[] indexes = new int[latitudes.length];
+        double[] distances = new double[latitudes.length];
+        int hits = DistanceKernel.withinRadius(refLat, refLon, latitudes, longitudes, latitudes.length,
+                radiusKm, prefilter, indexes, distances);
+        return Arrays.copyOf(indexes, hits);
+    }
+
+    @Test
+    void prefilterNeverDropsAPointInsideTheRadius() {
+        Random random = new Random(42);
+        // Reference points include the tropics, near the poles and both sides of the antimeridian
+        double[][] references = { { 18.52, 73.85 }, { 0, 0 }, { 85, 10 }, { -89.5, -120 }, { 10, 179.9 }, { -30, -179.95 } };
+        double[] radii = { 0.5, 5, 50, 500, 5000, 25000 };
+
+        for (double[] reference : references) {
+            for (double radiusKm : radii) {
+                double spread = Math.min(180, radiusKm / GeoMath.KM_PER_DEGREE * 1.5);
+                double[] latitudes = new double[2000];
+                double[] longitudes = new double[2000];
+                for (int i = 0; i < latitudes.length; i++) {
+                    latitudes[i] = Math.max(-90, Math.min(90, reference[0] + (random.nextDouble() * 2 - 1) * spread));
+                    double lon = reference[1] + (random.nextDouble() * 2 - 1) * spread * 2;
+                    longitudes[i] = ((lon + 540) % 360) - 180;
+                }
+
+                int[] exact = hits(reference[0], reference[1], latitudes, longitudes, radiusKm, false);
+                int[] filtered = hits(reference[0], reference[1], latitudes, longitudes, radiusKm, true);
+                assertThat(filtered).as("radius %s around %s", radiusKm, Arrays.toString(reference))
+                        .containsExactly(exact);
+            }
+        }
+    }
+
+    @Test
+    void distancesMatchHaversineAndMissingCoordinatesAreSkipped() {
+        double[] latitudes = { 18.5204, Double.NaN, 18.5590, 19.0760 };
+        double[] longitudes = { 73.8567, 73.8, 73.7868, 72.8777 };
+        int[] indexes = new int[4];
+        double[] distances = new double[4];
+
+        for (boolean prefilter : new boolean[] { false, true }) {
+            int hits = DistanceKernel.withinRadius(18.5204, 73.8567, latitudes, longitudes, 4, 20, prefilter,
+                    indexes, distances);
+
+            assertThat(hits).isEqualTo(2);
+            assertThat(Arrays.copyOf(indexes, hits)).containsExactly(0, 2);
+            assertThat(distances[0]).isZero();
+            assertThat(distances[1]).isCloseTo(GeoMath.haversineKm(18.5204, 73.8567, 18.5590, 73.7868),
+                    within(1e-9));
+        }
+    }
+}
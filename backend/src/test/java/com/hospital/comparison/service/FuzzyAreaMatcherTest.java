@@ -0,0 +1,59 @@
+package com.hospital.comparison.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FuzzyAreaMatcherTest {
+
+    private static final String CSV = String.join("\n",
+            "Pune,New Sangvi,18.5800,73.8200",
+            "Pune,New Sangvi Phase 2,18.5810,73.8210",
+            "Pune,Pimpri Colony,18.6200,73.8000",
+            "Pune,Kothrud,18.5114,73.8048",
+            "Pune,Sinhagad Road,18.4800,73.8200",
+            "Pune,FC Road,18.5240,73.8410",
+            "Pune,Baner Road,18.5590,73.7868",
+            "Pune,Nagar Road,18.5500,73.9000",
+            "Pune,Viman Nagar,18.5679,73.9143",
+            "Pune,Kalyani Nagar,18.5463,73.9033",
+            "Pune,Shivaji Nagar,18.5308,73.8475",
+            "");
+
+    private Gazetteer gazetteer;
+    private FuzzyAreaMatcher matcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gazetteer = Gazetteer.wrap(GazetteerCompiler.build(new StringReader(CSV)));
+        matcher = new FuzzyAreaMatcher(gazetteer, 0.75);
+    }
+
+    private String match(String city, String area) {
+        int found = matcher.match(city, area);
+        return found < 0 ? null : gazetteer.areaName(found);
+    }
+
+    @Test
+    void distinctiveWordMatchesTheClosestContainingName() {
+        assertThat(match("Pune", "Sangvi")).isEqualTo("New Sangvi");
+        assertThat(match("pune", "pimpri")).isEqualTo("Pimpri Colony");
+    }
+
+    @Test
+    void commonWordAloneDoesNotMatch() {
+        assertThat(match("Pune", "Road")).isNull();
+        assertThat(match("Pune", "Nagar")).isNull();
+    }
+
+    @Test
+    void spellingVariationsMatchByEditDistance() {
+        assertThat(match("Pune", "Kotrud")).isEqualTo("Kothrud");
+        assertThat(match("Pune", "viman-nagar")).isEqualTo("Viman Nagar");
+        assertThat(match("Mumbai", "Kothrud")).isNull();
+    }
+}
@@ -0,0 +1,100 @@
+package com.hospital.comparison.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GazetteerTest {
+
+    private static final String CSV = String.join("\n",
+            "# city,area,latitude,longitude",
+            "Pune,Kothrud,18.5114,73.8048",
+            "Pune,Koregaon Park,18.5344,73.8985",
+            "Pune, Baner ,18.5590,73.7868",
+            "Mumbai,Andheri West,19.1364,72.8296",
+            "Mumbai,Andheri West,19.1365,72.8297",
+            "@alias,Pimpri-Chinchwad,Pune",
+            "");
+
+    @TempDir
+    Path dir;
+
+    private Gazetteer compiled() throws IOException {
+        return Gazetteer.wrap(GazetteerCompiler.build(new StringReader(CSV)));
+    }
+
+    @Test
+    void lookupsIgnoreCaseAndSurroundingSpaces() throws IOException {
+        Gazetteer gazetteer = compiled();
+
+        assertThat(gazetteer.size()).isEqualTo(4);
+        int baner = gazetteer.findArea("  PUNE", "baner ");
+        assertThat(baner).isNotNegative();
+        assertThat(gazetteer.areaName(baner)).isEqualTo("Baner");
+        assertThat(gazetteer.cityName(baner)).isEqualTo("Pune");
+        assertThat(gazetteer.latitude(baner)).isEqualTo(18.5590);
+        assertThat(gazetteer.longitude(baner)).isEqualTo(73.7868);
+        assertThat(gazetteer.findArea("Pune", "Andheri West")).isNegative();
+        assertThat(gazetteer.findArea("Nashik", "Kothrud")).isNegative();
+    }
+
+    @Test
+    void aliasResolvesToTheTargetCitysAreasAndLastDuplicateWins() throws IOException {
+        Gazetteer gazetteer = compiled();
+
+        assertThat(gazetteer.findArea("pimpri-chinchwad", "Kothrud")).isEqualTo(gazetteer.findArea("Pune", "Kothrud"));
+        assertThat(gazetteer.cityCount()).isEqualTo(3);
+        int andheri = gazetteer.findArea("Mumbai", "andheri west");
+        assertThat(gazetteer.latitude(andheri)).isEqualTo(19.1365);
+    }
+
+    @Test
+    void nearestAreaIsLimitedToTheRadius() throws IOException {
+        Gazetteer gazetteer = compiled();
+
+        int nearest = gazetteer.findNearest(18.5120, 73.8050, 2.0);
+        assertThat(gazetteer.areaName(nearest)).isEqualTo("Kothrud");
+        assertThat(gazetteer.findNearest(17.0, 73.8, 2.0)).isNegative();
+    }
+
+    @Test
+    void compiledFileReadsBackTheSameAsTheInMemoryBuild() throws IOException {
+        Path file = dir.resolve("nested/gazetteer.bin");
+        assertThat(GazetteerCompiler.compile(new StringReader(CSV), file)).isEqualTo(4);
+
+        Gazetteer mapped = Gazetteer.open(file);
+        assertThat(Files.exists(dir.resolve("nested/gazetteer.bin.tmp"))).isFalse();
+        assertThat(mapped.findArea("Pune", "Koregaon Park")).isEqualTo(compiled().findArea("Pune", "Koregaon Park"));
+    }
+
+    @Test
+    void malformedLinesAreRejected() {
+        assertThatThrownBy(() -> GazetteerCompiler.build(new StringReader("Pune,Kothrud,north,73.8")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GazetteerCompiler.build(new StringReader("@alias,Poona,Nowhere\nPune,Kothrud,1,2")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void unwritableGazetteerFileFallsBackToTheBundledDataInMemory() throws IOException {
+        // A regular file where the data directory should be, so nothing can be created under it
+        Path blocker = Files.createFile(dir.resolve("data"));
+
+        AreaCoordinatesService service = new AreaCoordinatesService();
+        ReflectionTestUtils.setField(service, "gazetteerFile", blocker.resolve("gazetteer.bin").toString());
+        ReflectionTestUtils.setField(service, "reloadCheckSeconds", 0L);
+        ReflectionTestUtils.setField(service, "fuzzyEnabled", true);
+        ReflectionTestUtils.setField(service, "fuzzyMinSimilarity", 0.75);
+        service.init();
+
+        assertThat(service.getAreaCoordinates("Pune", "Kothrud")).isNotNull();
+    }
+}
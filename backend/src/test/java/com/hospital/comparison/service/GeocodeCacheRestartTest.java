@@ -0,0 +1,147 @@
+package com.hospital.comparison.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Geocoding against a stub Nominatim server: answers stored by one instance are
+ * served by the next one, rebuilt from the cache log, without any outbound call.
+ */
+class GeocodeCacheRestartTest {
+
+    @TempDir
+    Path dir;
+
+    private HttpServer nominatim;
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+    private GeocodeCache cache;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        nominatim = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        nominatim.createContext("/search", exchange -> {
+            upstreamHits.incrementAndGet();
+            String query = exchange.getRequestURI().getQuery();
+            String body = query.contains("Kothrud")
+                    ? "[{\"lat\":\"18.5074\",\"lon\":\"73.8077\",\"importance\":0.5,"
+                            + "\"boundingbox\":[\"18.49\",\"18.52\",\"73.79\",\"73.82\"]}]"
+                    : "[]";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        nominatim.createContext("/reverse", exchange -> {
+            upstreamHits.incrementAndGet();
+            byte[] bytes = "{\"address\":{\"city\":\"Pune\",\"suburb\":\"Kothrud\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        nominatim.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (cache != null) cache.close();
+        nominatim.stop(0);
+    }
+
+    private GeocodeCache openCache() {
+        GeocodeCache opened = new GeocodeCache();
+        ReflectionTestUtils.setField(opened, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(opened, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(opened, "enabled", true);
+        ReflectionTestUtils.setField(opened, "file", dir.resolve("geocode-cache.jsonl").toString());
+        ReflectionTestUtils.setField(opened, "ttlHours", 720L);
+        ReflectionTestUtils.setField(opened, "negativeTtlHours", 6L);
+        ReflectionTestUtils.setField(opened, "maxEntries", 1000);
+        opened.init();
+        return opened;
+    }
+
+    private GeocodingService service(GeocodeCache geocodeCache) {
+        NominatimRateLimiter rateLimiter = mock(NominatimRateLimiter.class);
+        when(rateLimiter.tryAcquire(anyLong())).thenReturn(true);
+        when(rateLimiter.getMaxWaitMillis()).thenReturn(2000L);
+        GeocoderCircuitBreaker circuitBreaker = mock(GeocoderCircuitBreaker.class);
+        when(circuitBreaker.allowRequest()).thenReturn(true);
+
+        ReverseGeocodeCache reverseGeocodeCache = new ReverseGeocodeCache();
+        ReflectionTestUtils.setField(reverseGeocodeCache, "geocodeCache", geocodeCache);
+        ReflectionTestUtils.setField(reverseGeocodeCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reverseGeocodeCache, "enabled", true);
+        ReflectionTestUtils.setField(reverseGeocodeCache, "precision", 6);
+        ReflectionTestUtils.setField(reverseGeocodeCache, "ttlHours", 24L);
+        ReflectionTestUtils.setField(reverseGeocodeCache, "emptyTtlMinutes", 15L);
+        reverseGeocodeCache.init();
+
+        GeocodingService service = new GeocodingService();
+        ReflectionTestUtils.setField(service, "areaCoordinatesService", mock(AreaCoordinatesService.class));
+        ReflectionTestUtils.setField(service, "reverseGeocodeCache", reverseGeocodeCache);
+        ReflectionTestUtils.setField(service, "restTemplate", new RestTemplate());
+        ReflectionTestUtils.setField(service, "geocodeCache", geocodeCache);
+        ReflectionTestUtils.setField(service, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(service, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "nominatimBaseUrl",
+                "http://127.0.0.1:" + nominatim.getAddress().getPort());
+        service.init();
+        return service;
+    }
+
+    @Test
+    void warmCacheAnswersAfterARestartWithoutCallingNominatim() {
+        cache = openCache();
+        GeocodingService first = service(cache);
+        assertThat(first.getCoordinates("Kothrud, Pune")).containsExactly(18.5074, 73.8077);
+        assertThat(first.getCoordinates("Atlantis")).isNull();
+        assertThat(upstreamHits.get()).isEqualTo(2);
+        cache.close();
+
+        // A new instance replays the log written by the first one
+        cache = openCache();
+        GeocodingService restarted = service(cache);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(restarted.getCoordinates("  kothrud,   PUNE ")).containsExactly(18.5074, 73.8077);
+        assertThat(restarted.getCoordinates("Atlantis")).isNull();
+        assertThat(upstreamHits.get()).isEqualTo(2);
+    }
+
+    @Test
+    void reverseCellAnswersAreServedAfterARestart() {
+        cache = openCache();
+        assertThat(service(cache).reverseGeocode(18.50740, 73.80770)).containsEntry("area", "Kothrud");
+        assertThat(upstreamHits.get()).isEqualTo(1);
+        cache.close();
+
+        cache = openCache();
+        // A jittered fix in the same cell
+        assertThat(service(cache).reverseGeocode(18.50742, 73.80772))
+                .containsEntry("city", "Pune").containsEntry("area", "Kothrud");
+        assertThat(upstreamHits.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.hospital.comparison.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeocodeCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private GeocodeCache cache;
+
+    private GeocodeCache open(int maxEntries) {
+        GeocodeCache opened = new GeocodeCache();
+        ReflectionTestUtils.setField(opened, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(opened, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(opened, "enabled", true);
+        ReflectionTestUtils.setField(opened, "file", dir.resolve("geocode-cache.jsonl").toString());
+        ReflectionTestUtils.setField(opened, "ttlHours", 720L);
+        ReflectionTestUtils.setField(opened, "negativeTtlHours", 6L);
+        ReflectionTestUtils.setField(opened, "maxEntries", maxEntries);
+        opened.init();
+        return opened;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) cache.close();
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedAtTheBound() {
+        cache = open(3);
+        cache.putMatch("search:a", 1, 1, null, null);
+        cache.putMatch("search:b", 2, 2, null, null);
+        cache.putNotFound("search:c");
+        assertThat(cache.get("search:a")).isNotNull();
+
+        cache.putMatch("search:d", 4, 4, null, null);
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.contains("search:b")).isFalse();
+        assertThat(cache.contains("search:a")).isTrue();
+        assertThat(cache.contains("search:c")).isTrue();
+        assertThat(cache.contains("search:d")).isTrue();
+    }
+
+    @Test
+    void logIsCompactedWhileRunning() throws IOException {
+        cache = open(10);
+        for (int i = 0; i < 500; i++) {
+            cache.putMatch("search:area " + i, i, i, null, null);
+        }
+
+        long lines = Files.readAllLines(dir.resolve("geocode-cache.jsonl")).size();
+        assertThat(cache.size()).isEqualTo(10);
+        assertThat(lines).isLessThanOrEqualTo(2L * 10 + 101);
+    }
+
+    @Test
+    void restartReplaysTheLogWithinTheBound() {
+        cache = open(5);
+        for (int i = 0; i < 8; i++) {
+            cache.putMatch("search:area " + i, i, i, null, null);
+        }
+        cache.close();
+
+        cache = open(5);
+
+        assertThat(cache.size()).isEqualTo(5);
+        assertThat(cache.contains("search:area 7")).isTrue();
+        assertThat(cache.contains("search:area 2")).isFalse();
+        assertThat(cache.get("search:area 7").coordinates()).containsExactly(7.0, 7.0);
+    }
+}
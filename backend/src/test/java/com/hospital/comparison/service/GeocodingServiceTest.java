@@ -0,0 +1,94 @@
+package com.hospital.comparison.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GeocodingServiceTest {
+
+    private GeocodingService service;
+    private RestTemplate restTemplate;
+    private NominatimRateLimiter rateLimiter;
+    private GeocoderCircuitBreaker circuitBreaker;
+    private final CountDownLatch upstreamRelease = new CountDownLatch(1);
+    private final CountDownLatch upstreamCalled = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = mock(RestTemplate.class);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class))).thenAnswer(call -> {
+            upstreamCalled.countDown();
+            upstreamRelease.await();
+            return ResponseEntity.ok(List.of(Map.of("lat", "18.52", "lon", "73.85")));
+        });
+
+        rateLimiter = mock(NominatimRateLimiter.class);
+        when(rateLimiter.tryAcquire(anyLong())).thenReturn(true);
+        when(rateLimiter.getMaxWaitMillis()).thenReturn(200L);
+        circuitBreaker = mock(GeocoderCircuitBreaker.class);
+        when(circuitBreaker.allowRequest()).thenReturn(true);
+
+        GeocodeCache geocodeCache = mock(GeocodeCache.class);
+        when(geocodeCache.putMatch(anyString(), anyDouble(), anyDouble(), any(), any())).thenAnswer(call ->
+                new GeocodeCache.Entry(call.getArgument(0), call.getArgument(1), call.getArgument(2), null, null, 0L));
+
+        service = new GeocodingService();
+        ReflectionTestUtils.setField(service, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(service, "geocodeCache", geocodeCache);
+        ReflectionTestUtils.setField(service, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(service, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "nominatimBaseUrl", "http://localhost:1");
+        service.init();
+    }
+
+    @Test
+    void callerJoiningASlowIdenticalLookupGivesUpAtItsBudget() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<double[]> leader = executor.submit(() -> service.getCoordinates("Pune"));
+            assertThat(upstreamCalled.await(5, TimeUnit.SECONDS)).isTrue();
+
+            long started = System.currentTimeMillis();
+            double[] joined = service.getCoordinates("Pune");
+            long waited = System.currentTimeMillis() - started;
+
+            assertThat(joined).isNull();
+            assertThat(waited).isBetween(150L, 2000L);
+
+            upstreamRelease.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).containsExactly(18.52, 73.85);
+            verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                    any(ParameterizedTypeReference.class));
+        } finally {
+            upstreamRelease.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void permitIsReturnedWhenTheBreakerRefusesTheCall() {
+        when(circuitBreaker.allowRequest()).thenReturn(false);
+
+        assertThat(service.getCoordinates("Pune")).isNull();
+
+        verify(rateLimiter).release();
+        verify(restTemplate, never()).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class));
+    }
+}
@@ -0,0 +1,162 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.dto.HospitalSearchDTO;
+import com.hospital.comparison.entity.Hospital;
+import com.hospital.comparison.entity.HospitalRatingStats;
+import com.hospital.comparison.entity.HospitalService;
+import com.hospital.comparison.entity.Service;
+import com.hospital.comparison.repository.HospitalRatingStatsRepository;
+import com.hospital.comparison.repository.HospitalRepository;
+import com.hospital.comparison.repository.HospitalServiceRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Search and compare without a catalog snapshot must cost a fixed number of SQL
+ * statements however many hospitals they return (no per-row review or hospital loads).
+ */
+@DataJpaTest(properties = {
+        // "user" is a keyword in H2; MySQL mode keeps the schema as close to production as H2 allows
+        "spring.datasource.url=jdbc:h2:mem:search-query-count;MODE=MySQL;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class HospitalSearchQueryCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private HospitalRepository hospitalRepository;
+
+    @Autowired
+    private HospitalServiceRepository hospitalServiceRepository;
+
+    @Autowired
+    private HospitalRatingStatsRepository ratingStatsRepository;
+
+    private HospitalSearchService searchService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        SearchResultCache searchResultCache = mock(SearchResultCache.class);
+        when(searchResultCache.isEnabled()).thenReturn(false);
+        RadiusQueryStrategySelector radiusQueryStrategy = mock(RadiusQueryStrategySelector.class);
+        when(radiusQueryStrategy.current()).thenReturn(RadiusQueryStrategySelector.Strategy.MANUAL);
+
+        searchService = new HospitalSearchService();
+        ReflectionTestUtils.setField(searchService, "hospitalRepository", hospitalRepository);
+        ReflectionTestUtils.setField(searchService, "hospitalServiceRepository", hospitalServiceRepository);
+        ReflectionTestUtils.setField(searchService, "ratingStatsRepository", ratingStatsRepository);
+        ReflectionTestUtils.setField(searchService, "searchResultCache", searchResultCache);
+        ReflectionTestUtils.setField(searchService, "catalogSnapshotService", mock(CatalogSnapshotService.class));
+        ReflectionTestUtils.setField(searchService, "radiusQueryStrategy", radiusQueryStrategy);
+        ReflectionTestUtils.setField(searchService, "distancePrefilter", true);
+    }
+
+    /**
+     * Hospitals in the city, each offering the service and with rating stats; returns their ids
+     */
+    private List<Long> seed(String city, Service service, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Hospital hospital = new Hospital();
+            hospital.setName(city + " Hospital " + i);
+            hospital.setAddress(i + " Main Road");
+            hospital.setCity(city);
+            hospital.setLatitude(18.5 + i * 0.001);
+            hospital.setLongitude(73.85);
+            entityManager.persist(hospital);
+
+            HospitalService offering = new HospitalService();
+            offering.setHospital(hospital);
+            offering.setService(service);
+            offering.setPrice(500.0 + i);
+            offering.setAvailability(true);
+            entityManager.persist(offering);
+
+            entityManager.persist(new HospitalRatingStats(hospital.getId(), 4L, 1L, 0L, 0L, 0L, 1L, 0L));
+            ids.add(hospital.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return ids;
+    }
+
+    private Service service() {
+        Service service = new Service();
+        service.setName("MRI");
+        service.setCategory("Imaging");
+        entityManager.persist(service);
+        return service;
+    }
+
+    private long statementsFor(Supplier<List<HospitalSearchDTO>> call, int expectedResults) {
+        entityManager.clear();
+        statistics.clear();
+        List<HospitalSearchDTO> results = call.get();
+        assertThat(results).hasSize(expectedResults);
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void searchCostsTheSameStatementsForTenTimesTheHospitals() {
+        Service service = service();
+        seed("Nashik", service, 10);
+        seed("Pune", service, 100);
+        Long serviceId = service.getId();
+
+        long citySmall = statementsFor(() -> searchService.searchHospitals(serviceId, null, null,
+                "Nashik", null, null, false), 10);
+        long cityLarge = statementsFor(() -> searchService.searchHospitals(serviceId, null, null,
+                "Pune", null, null, false), 100);
+        assertThat(cityLarge).isEqualTo(citySmall).isEqualTo(3);
+
+        long radiusSmall = statementsFor(() -> searchService.searchHospitals(serviceId, 18.5, 73.85,
+                "Nashik", null, 50.0, false), 10);
+        long radiusLarge = statementsFor(() -> searchService.searchHospitals(serviceId, 18.5, 73.85,
+                "Pune", null, 50.0, false), 100);
+        assertThat(radiusLarge).isEqualTo(radiusSmall);
+    }
+
+    @Test
+    void compareCostsTheSameStatementsForTenTimesTheHospitals() {
+        Service service = service();
+        List<Long> small = seed("Nashik", service, 10);
+        List<Long> large = seed("Pune", service, 100);
+        Long serviceId = service.getId();
+
+        long compareSmall = statementsFor(() -> searchService.compareHospitals(serviceId, small), 10);
+        long compareLarge = statementsFor(() -> searchService.compareHospitals(serviceId, large), 100);
+
+        assertThat(compareLarge).isEqualTo(compareSmall).isEqualTo(2);
+    }
+}
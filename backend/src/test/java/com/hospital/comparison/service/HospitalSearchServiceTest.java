@@ -0,0 +1,77 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.repository.HospitalRatingStatsRepository;
+import com.hospital.comparison.repository.HospitalRepository;
+import com.hospital.comparison.repository.HospitalServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HospitalSearchServiceTest {
+
+    private HospitalSearchService service;
+    private HospitalRepository hospitalRepository;
+    private HospitalServiceRepository hospitalServiceRepository;
+    private RadiusQueryStrategySelector radiusQueryStrategy;
+
+    @BeforeEach
+    void setUp() {
+        hospitalRepository = mock(HospitalRepository.class);
+        hospitalServiceRepository = mock(HospitalServiceRepository.class);
+        radiusQueryStrategy = mock(RadiusQueryStrategySelector.class);
+        HospitalSpatialIndex spatialIndex = mock(HospitalSpatialIndex.class);
+        when(spatialIndex.isReady()).thenReturn(false);
+
+        List<Object[]> coordinates = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            // One hospital every ~11 km going north, all far apart
+            coordinates.add(new Object[] { id, 18.5 + id * 0.1, 73.85, "Pune" });
+        }
+        when(hospitalRepository.findAllCoordinates()).thenReturn(coordinates);
+        when(hospitalServiceRepository.findHospitalIdsByServiceId(7L)).thenReturn(List.of(18L, 19L, 20L));
+
+        service = new HospitalSearchService();
+        ReflectionTestUtils.setField(service, "hospitalRepository", hospitalRepository);
+        ReflectionTestUtils.setField(service, "hospitalServiceRepository", hospitalServiceRepository);
+        ReflectionTestUtils.setField(service, "ratingStatsRepository", mock(HospitalRatingStatsRepository.class));
+        ReflectionTestUtils.setField(service, "hospitalSpatialIndex", spatialIndex);
+        ReflectionTestUtils.setField(service, "catalogSnapshotService", mock(CatalogSnapshotService.class));
+        ReflectionTestUtils.setField(service, "radiusQueryStrategy", radiusQueryStrategy);
+        ReflectionTestUtils.setField(service, "distancePrefilter", true);
+        ReflectionTestUtils.setField(service, "nearestMaxK", 50);
+        ReflectionTestUtils.setField(service, "nearestMaxRadiusKm", 500.0);
+    }
+
+    @Test
+    void nearestWithoutSpatialQueriesReadsTheCoordinatesOnce() {
+        when(radiusQueryStrategy.current()).thenReturn(RadiusQueryStrategySelector.Strategy.MANUAL);
+
+        service.findNearestHospitals(7L, 18.5, 73.85, 2);
+
+        verify(hospitalRepository, times(1)).findAllCoordinates();
+        verify(hospitalRepository, never()).findHospitalsWithinRadiusFromCoordinates(anyDouble(), anyDouble(),
+                anyDouble(), anyString());
+        // Only the two nearest hospitals offering the service are looked up
+        verify(hospitalServiceRepository).findByServiceIdAndHospitalIds(7L, List.of(18L, 19L));
+    }
+
+    @Test
+    void failingSpatialQueryFallsBackToOneInMemoryPass() {
+        when(radiusQueryStrategy.current()).thenReturn(RadiusQueryStrategySelector.Strategy.SPATIAL_SQL);
+        when(hospitalRepository.findHospitalsWithinRadiusFromCoordinates(anyDouble(), anyDouble(), anyDouble(),
+                anyString())).thenThrow(new IllegalStateException("no spatial support"));
+
+        service.findNearestHospitals(7L, 18.5, 73.85, 2);
+
+        verify(hospitalRepository, times(1)).findHospitalsWithinRadiusFromCoordinates(anyDouble(), anyDouble(),
+                anyDouble(), anyString());
+        verify(radiusQueryStrategy).recordFailure(any());
+        verify(hospitalRepository, times(1)).findAllCoordinates();
+    }
+}
@@ -0,0 +1,96 @@
+package com.hospital.comparison.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyKeyStoreTest {
+
+    private IdempotencyKeyStore store;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new IdempotencyKeyStore();
+        ReflectionTestUtils.setField(store, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(store, "maxEntries", 2);
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        store.init();
+    }
+
+    @Test
+    void repeatedKeyReplaysTheStoredResultAndRejectsAnotherPayload() {
+        AtomicInteger runs = new AtomicInteger();
+
+        IdempotencyKeyStore.Result<Integer> first = store.execute("book", "k1", "slot=7", runs::incrementAndGet);
+        IdempotencyKeyStore.Result<Integer> repeat = store.execute("book", " k1 ", "slot=7", runs::incrementAndGet);
+
+        assertThat(first.isReplayed()).isFalse();
+        assertThat(repeat.isReplayed()).isTrue();
+        assertThat(repeat.getValue()).isEqualTo(1);
+        assertThat(runs.get()).isEqualTo(1);
+        assertThatThrownBy(() -> store.execute("book", "k1", "slot=8", runs::incrementAndGet))
+                .isInstanceOf(IllegalArgumentException.class);
+        // The same key in another scope is independent
+        assertThat(store.execute("cancel", "k1", "slot=8", runs::incrementAndGet).isReplayed()).isFalse();
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<IdempotencyKeyStore.Result<Integer>> first = executor.submit(() ->
+                    store.execute("book", "k1", "slot=7", () -> {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return runs.incrementAndGet();
+                    }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<IdempotencyKeyStore.Result<Integer>> duplicate = executor.submit(() ->
+                    store.execute("book", "k1", "slot=7", runs::incrementAndGet));
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS).getValue()).isEqualTo(1);
+            assertThat(duplicate.get(5, TimeUnit.SECONDS).isReplayed()).isTrue();
+            assertThat(duplicate.get().getValue()).isEqualTo(1);
+            assertThat(runs.get()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedExecutionIsNotStoredAndOldestKeysAreEvicted() {
+        assertThatThrownBy(() -> store.execute("book", "k1", "slot=7", () -> {
+            throw new IllegalStateException("slot taken");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(store.execute("book", "k1", "slot=7", () -> 5).isReplayed()).isFalse();
+
+        store.execute("book", "k2", "slot=7", () -> 6);
+        store.execute("book", "k3", "slot=7", () -> 7);
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(meterRegistry.counter("idempotency.evictions").count()).isEqualTo(1);
+        assertThat(store.execute("book", "k1", "slot=7", () -> 8).getValue()).isEqualTo(8);
+
+        assertThatThrownBy(() -> store.execute("book", " ", "slot=7", () -> 9))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.execute("book", "x".repeat(256), "slot=7", () -> 9))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
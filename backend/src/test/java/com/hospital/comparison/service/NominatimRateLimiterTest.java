@@ -0,0 +1,78 @@
+package com.hospital.comparison.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NominatimRateLimiterTest {
+
+    private NominatimRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new NominatimRateLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "permitsPerSecond", 1.0);
+        ReflectionTestUtils.setField(limiter, "burst", 1);
+        ReflectionTestUtils.setField(limiter, "maxQueue", 10);
+        ReflectionTestUtils.setField(limiter, "maxWaitMillis", 5000L);
+        limiter.init();
+    }
+
+    private Thread waiter(AtomicBoolean acquired) throws InterruptedException {
+        Thread thread = new Thread(() -> acquired.set(limiter.tryAcquire(5000)));
+        thread.start();
+        while (limiter.queueDepth() == 0) Thread.sleep(5);
+        return thread;
+    }
+
+    @Test
+    void interruptedWaiterGivesItsTokenBack() throws InterruptedException {
+        assertThat(limiter.tryAcquire(0)).isTrue();
+
+        AtomicBoolean acquired = new AtomicBoolean(true);
+        Thread cancelled = waiter(acquired);
+        cancelled.interrupt();
+        cancelled.join();
+
+        assertThat(acquired.get()).isFalse();
+        assertThat(limiter.queueDepth()).isZero();
+        // Without the refund the next token would be two seconds away
+        assertThat(limiter.tryAcquire(1500)).isTrue();
+    }
+
+    @Test
+    void tokenOfAnEarlierWaiterIsNotReusedAheadOfLaterOnes() throws InterruptedException {
+        assertThat(limiter.tryAcquire(0)).isTrue();
+
+        AtomicBoolean firstAcquired = new AtomicBoolean(true);
+        Thread first = waiter(firstAcquired);
+        AtomicBoolean secondAcquired = new AtomicBoolean(false);
+        Thread second = new Thread(() -> secondAcquired.set(limiter.tryAcquire(5000)));
+        second.start();
+        while (limiter.queueDepth() < 2) Thread.sleep(5);
+
+        first.interrupt();
+        first.join();
+
+        // The second waiter still holds the slot after the first one, so a newcomer waits behind it
+        assertThat(limiter.tryAcquire(1500)).isFalse();
+        second.join();
+        assertThat(secondAcquired.get()).isTrue();
+    }
+
+    @Test
+    void tokenOfACallThatDidNotGoOutIsReturned() {
+        assertThat(limiter.tryAcquire(0)).isTrue();
+        assertThat(limiter.tryAcquire(0)).isFalse();
+
+        limiter.release();
+
+        assertThat(limiter.tryAcquire(0)).isTrue();
+    }
+}
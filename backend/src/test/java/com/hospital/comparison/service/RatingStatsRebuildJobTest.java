@@ -0,0 +1,102 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.entity.HospitalRatingStats;
+import com.hospital.comparison.event.ReviewAddedEvent;
+import com.hospital.comparison.repository.HospitalRatingStatsRepository;
+import com.hospital.comparison.repository.HospitalRepository;
+import com.hospital.comparison.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RatingStatsRebuildJobTest {
+
+    private RatingStatsRebuildJob job;
+    private HospitalRatingStatsRepository ratingStatsRepository;
+    private ReviewRepository reviewRepository;
+    private DatabaseVendor databaseVendor;
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ratingStatsRepository = mock(HospitalRatingStatsRepository.class);
+        reviewRepository = mock(ReviewRepository.class);
+        databaseVendor = mock(DatabaseVendor.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        HospitalRepository hospitalRepository = mock(HospitalRepository.class);
+        when(hospitalRepository.findIdsAfter(eq(0L), any())).thenReturn(List.of(1L, 2L, 3L, 4L));
+        when(hospitalRepository.findIdsAfter(eq(4L), any())).thenReturn(List.of());
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(call ->
+                ((TransactionCallback<Integer>) call.getArgument(0)).doInTransaction(null));
+
+        job = new RatingStatsRebuildJob();
+        ReflectionTestUtils.setField(job, "ratingStatsRepository", ratingStatsRepository);
+        ReflectionTestUtils.setField(job, "reviewRepository", reviewRepository);
+        ReflectionTestUtils.setField(job, "hospitalRepository", hospitalRepository);
+        ReflectionTestUtils.setField(job, "databaseVendor", databaseVendor);
+        ReflectionTestUtils.setField(job, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(job, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(job, "batchSize", 500);
+    }
+
+    private static HospitalRatingStats stats(long hospitalId, long... stars) {
+        long count = 0;
+        long sum = 0;
+        for (int i = 0; i < 5; i++) {
+            count += stars[i];
+            sum += (i + 1) * stars[i];
+        }
+        return new HospitalRatingStats(hospitalId, sum, count, stars[0], stars[1], stars[2], stars[3], stars[4]);
+    }
+
+    @Test
+    void onlyDriftedRowsAreRewrittenAgainstTheCountThatWasRead() {
+        // 1 is correct, 2 missed a deleted review, 3 has no row yet, 4 has neither reviews nor a row
+        when(ratingStatsRepository.findByHospitalIdIn(any())).thenReturn(List.of(
+                stats(1, 0, 0, 0, 1, 1),
+                stats(2, 0, 0, 1, 0, 2)));
+        when(reviewRepository.countRatingsByHospitalIds(any())).thenReturn(List.of(
+                new Object[] { 1L, 4, 1L }, new Object[] { 1L, 5, 1L },
+                new Object[] { 2L, 5, 2L },
+                new Object[] { 3L, 2, 3L }));
+        when(ratingStatsRepository.replaceIfUnchanged(anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+
+        assertThat(job.rebuild()).isEqualTo(2);
+
+        verify(ratingStatsRepository).replaceIfUnchanged(2L, 3L, 10L, 2L, 0L, 0L, 0L, 0L, 2L);
+        verify(ratingStatsRepository).createIfAbsentMySql(3L);
+        verify(ratingStatsRepository).replaceIfUnchanged(3L, 0L, 6L, 3L, 0L, 3L, 0L, 0L, 0L);
+        verify(ratingStatsRepository, never()).replaceIfUnchanged(eq(1L), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+        verify(ratingStatsRepository, never()).createIfAbsentMySql(4L);
+        verify(eventPublisher, times(2)).publishEvent(any(ReviewAddedEvent.class));
+    }
+
+    @Test
+    void rowChangedByAConcurrentReviewIsLeftForTheNextRun() {
+        when(databaseVendor.isPostgres()).thenReturn(true);
+        when(ratingStatsRepository.findByHospitalIdIn(any())).thenReturn(List.of());
+        when(reviewRepository.countRatingsByHospitalIds(any())).thenReturn(List.<Object[]>of(new Object[] { 3L, 2, 3L }));
+        when(ratingStatsRepository.replaceIfUnchanged(anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), anyLong(), anyLong())).thenReturn(0);
+
+        assertThat(job.rebuild()).isZero();
+
+        verify(ratingStatsRepository).createIfAbsentPostgres(3L);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+}
@@ -0,0 +1,101 @@
+package com.hospital.comparison.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReverseGeocodeCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private GeocodeCache geocodeCache;
+    private ReverseGeocodeCache cache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        geocodeCache.close();
+    }
+
+    private void open() {
+        meterRegistry = new SimpleMeterRegistry();
+        geocodeCache = new GeocodeCache();
+        ReflectionTestUtils.setField(geocodeCache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(geocodeCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(geocodeCache, "enabled", true);
+        ReflectionTestUtils.setField(geocodeCache, "file", dir.resolve("geocode-cache.jsonl").toString());
+        ReflectionTestUtils.setField(geocodeCache, "ttlHours", 720L);
+        ReflectionTestUtils.setField(geocodeCache, "negativeTtlHours", 6L);
+        ReflectionTestUtils.setField(geocodeCache, "maxEntries", 100);
+        geocodeCache.init();
+
+        cache = new ReverseGeocodeCache();
+        ReflectionTestUtils.setField(cache, "geocodeCache", geocodeCache);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "precision", 6);
+        ReflectionTestUtils.setField(cache, "ttlHours", 24L);
+        ReflectionTestUtils.setField(cache, "emptyTtlMinutes", 15L);
+        cache.init();
+    }
+
+    @Test
+    void geohashMatchesTheReferenceEncoding() {
+        assertThat(GeoMath.geohash(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+        assertThat(GeoMath.geohash(-25.382708, -49.265506, 8)).isEqualTo("6gkzwgjz");
+        assertThat(GeoMath.geohash(57.64911, 10.40744, 6)).isEqualTo("u4pruy");
+    }
+
+    @Test
+    void jitteredFixesShareACellAndDistantOnesDoNot() {
+        String cell = cache.cellKey(18.52040, 73.85670);
+        cache.put(cell, "Pune", "Shivaji Nagar");
+
+        // A few metres of GPS jitter stays in the same cell
+        assertThat(cache.cellKey(18.52045, 73.85675)).isEqualTo(cell);
+        assertThat(cache.get(cache.cellKey(18.52045, 73.85675)).getArea()).isEqualTo("Shivaji Nagar");
+        assertThat(cache.get(cache.cellKey(18.5590, 73.7868))).isNull();
+        assertThat(meterRegistry.counter("geocoding.reverse-cache.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("geocoding.reverse-cache.requests", "result", "miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    void cellAnswersSurviveARestartWithoutCollidingWithSearches() {
+        String cell = cache.cellKey(18.5074, 73.8077);
+        cache.put(cell, "Pune", "Kothrud");
+        geocodeCache.putNotFound(GeocodeCache.searchKey(cell));
+        geocodeCache.close();
+
+        open();
+
+        ReverseGeocodeCache.Place place = cache.get(cell);
+        assertThat(place.getCity()).isEqualTo("Pune");
+        assertThat(place.getArea()).isEqualTo("Kothrud");
+        assertThat(geocodeCache.get(GeocodeCache.searchKey(cell)).isNegative()).isTrue();
+    }
+
+    @Test
+    void answersWithoutACityAreKeptBriefly() {
+        ReflectionTestUtils.setField(cache, "emptyTtlMinutes", 0L);
+
+        cache.put("tdr1y0", "", "");
+        cache.put("tdr1y1", "Pune", "");
+
+        assertThat(cache.get("tdr1y0")).isNull();
+        assertThat(cache.get("tdr1y1").getCity()).isEqualTo("Pune");
+    }
+}
@@ -0,0 +1,75 @@
+package com.hospital.comparison.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SchemaMigrationServiceTest {
+
+    private SchemaMigrationService service() {
+        SchemaMigrationService service = new SchemaMigrationService();
+        ReflectionTestUtils.setField(service, "locations",
+                "classpath:db/migration/common/,classpath:db/migration/{vendor}/");
+        return service;
+    }
+
+    @Test
+    void loadsCommonAndVendorScriptsInVersionOrder() {
+        assertThat(service().loadScripts("mysql")).extracting(script -> script.version)
+                .containsExactly(1, 2, 3, 4, 5, 6, 7);
+        assertThat(service().loadScripts("postgresql")).extracting(script -> script.version)
+                .containsExactly(1, 2, 3, 4, 6, 7);
+    }
+
+    @Test
+    void splitsStatementsAndDropsComments() {
+        List<String> statements = SchemaMigrationService.splitStatements(
+                "-- header; with a semicolon\nCREATE INDEX a ON t (x);\n\nUPDATE t SET s = 'a;b'; -- trailing\n");
+
+        assertThat(statements).containsExactly("CREATE INDEX a ON t (x)", "UPDATE t SET s = 'a;b'");
+    }
+
+    @Test
+    void everyStatementOfTheLocationScriptIsSafeToRepeat() {
+        SchemaMigrationService.Script script = service().loadScripts("mysql").stream()
+                .filter(s -> s.version == 5).findFirst().orElseThrow();
+
+        assertThat(SchemaMigrationService.splitStatements(script.sql)).hasSize(8);
+    }
+
+    @Test
+    void skipsIndexesAndColumnsThatAlreadyExist() throws Exception {
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData meta = mock(DatabaseMetaData.class);
+        when(connection.getMetaData()).thenReturn(meta);
+        when(meta.storesLowerCaseIdentifiers()).thenReturn(true);
+
+        ResultSet indexes = mock(ResultSet.class);
+        when(indexes.next()).thenReturn(true, false);
+        when(indexes.getString("INDEX_NAME")).thenReturn("IDX_APPOINTMENT_USER_DATE");
+        when(meta.getIndexInfo(any(), any(), eq("appointment"), eq(false), eq(true))).thenReturn(indexes);
+
+        ResultSet columns = mock(ResultSet.class);
+        when(columns.next()).thenReturn(true, false);
+        when(columns.getString("COLUMN_NAME")).thenReturn("location");
+        when(meta.getColumns(any(), any(), eq("hospital"), isNull())).thenReturn(columns);
+
+        SchemaMigrationService service = service();
+        assertThat(service.existingObject(connection,
+                "CREATE INDEX idx_appointment_user_date ON appointment (user_id, appointment_date, appointment_id)"))
+                .isEqualTo("index idx_appointment_user_date");
+        assertThat(service.existingObject(connection,
+                "ALTER TABLE hospital ADD COLUMN location POINT SRID 4326 NULL"))
+                .isEqualTo("column hospital.location");
+        assertThat(service.existingObject(connection,
+                "ALTER TABLE hospital MODIFY COLUMN location POINT NOT NULL SRID 4326")).isNull();
+    }
+}
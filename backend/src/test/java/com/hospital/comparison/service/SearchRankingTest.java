@@ -0,0 +1,68 @@
+package com.hospital.comparison.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchRankingTest {
+
+    private static List<SearchRanking.Key> candidates() {
+        Random random = new Random(7);
+        List<SearchRanking.Key> keys = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Few distinct values so many keys tie until the hospital id
+            double distance = random.nextInt(5) + random.nextInt(3) / 3.0;
+            double price = random.nextInt(4) * 250.0;
+            double rating = random.nextInt(3) + 0.1;
+            keys.add(new SearchRanking.Key(distance, price, rating, 1000 - i, i));
+        }
+        return keys;
+    }
+
+    @Test
+    void pagingWithCursorsVisitsEveryKeyOnceInRankOrder() {
+        List<SearchRanking.Key> candidates = candidates();
+        List<SearchRanking.Key> expected = new ArrayList<>(candidates);
+        expected.sort(null);
+
+        List<SearchRanking.Key> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            SearchRanking.Key after = cursor == null ? null : SearchRanking.decodeCursor(cursor);
+            SearchRanking.Selection page = SearchRanking.select(candidates, 37, after);
+            assertThat(page.keys.size()).isLessThanOrEqualTo(37);
+            paged.addAll(page.keys);
+            cursor = page.nextCursor;
+        } while (cursor != null);
+
+        assertThat(paged).extracting(key -> key.payload)
+                .containsExactlyElementsOf(expected.stream().map(key -> key.payload).toList());
+    }
+
+    @Test
+    void cursorRoundTripsTheKeyExactly() {
+        SearchRanking.Key key = new SearchRanking.Key(0.1 + 0.2, 1499.99, 4.333333333333333, 42L, 3);
+
+        SearchRanking.Key decoded = SearchRanking.decodeCursor(SearchRanking.encodeCursor(key));
+
+        assertThat(decoded.compareTo(key)).isZero();
+        assertThat(decoded.distance).isEqualTo(key.distance);
+        assertThat(SearchRanking.select(List.of(key), 10, decoded).keys).isEmpty();
+    }
+
+    @Test
+    void lastPageHasNoCursorAndBadCursorsAreRejected() {
+        assertThat(SearchRanking.select(candidates(), 500, null).nextCursor).isNull();
+        assertThat(SearchRanking.select(candidates(), 499, null).nextCursor).isNotNull();
+
+        assertThatThrownBy(() -> SearchRanking.decodeCursor("not a cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SearchRanking.decodeCursor("MTox"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,75 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.dto.HospitalSearchDTO;
+import com.hospital.comparison.dto.HospitalSearchPageDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    private SearchResultCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new SearchResultCache();
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "degradedTtlSeconds", 0L);
+        ReflectionTestUtils.setField(cache, "cellSizeDegrees", 0.01);
+        cache.init();
+    }
+
+    private HospitalSearchPageDTO load(boolean degraded, List<HospitalSearchDTO> results) {
+        loads.incrementAndGet();
+        HospitalSearchPageDTO page = new HospitalSearchPageDTO(results, null);
+        page.setDegraded(degraded);
+        return page;
+    }
+
+    private List<HospitalSearchDTO> oneHospital() {
+        HospitalSearchDTO hospital = new HospitalSearchDTO();
+        hospital.setId(1L);
+        return List.of(hospital);
+    }
+
+    @Test
+    void completeResultsAreServedFromTheCache() {
+        String key = cache.key(5L, "Pune", "Kothrud", 10.0, null);
+        cache.getOrCompute(key, 5L, () -> load(false, oneHospital()));
+        cache.getOrCompute(key, 5L, () -> load(false, oneHospital()));
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void degradedResultsOnlyLiveForTheDegradedTtl() {
+        String key = cache.key(5L, "Pune", "Kothrud", 10.0, null);
+        cache.getOrCompute(key, 5L, () -> load(true, oneHospital()));
+        List<HospitalSearchDTO> second = cache.getOrCompute(key, 5L, () -> load(false, oneHospital()));
+        cache.getOrCompute(key, 5L, () -> load(false, oneHospital()));
+
+        assertThat(second).hasSize(1);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void emptyResultsAreNotStored() {
+        String key = cache.key(5L, "Pune", null, null, null);
+        cache.getOrCompute(key, 5L, () -> load(false, Collections.emptyList()));
+        cache.getOrCompute(key, 5L, () -> load(false, Collections.emptyList()));
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.size()).isZero();
+    }
+}
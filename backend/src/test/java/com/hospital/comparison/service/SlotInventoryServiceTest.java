@@ -0,0 +1,169 @@
+package com.hospital.comparison.service;
+
+import com.hospital.comparison.entity.AppointmentSlot;
+import com.hospital.comparison.repository.AppointmentRepository;
+import com.hospital.comparison.repository.AppointmentSlotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SlotInventoryServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private SlotInventoryService service;
+    private AppointmentSlotRepository slotRepository;
+    private DatabaseVendor databaseVendor;
+
+    // The slot row: capacity and the booked column changed by the conditional updates
+    private final int capacity = 1000;
+    private final AtomicInteger booked = new AtomicInteger();
+    private final AtomicInteger databaseUpdates = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        slotRepository = mock(AppointmentSlotRepository.class);
+        when(slotRepository.findById(any())).thenAnswer(call -> Optional.of(new AppointmentSlot(
+                call.getArgument(0), capacity, booked.get(), 0L)));
+        when(slotRepository.reserve(anyLong(), anyLong(), any(), anyInt())).thenAnswer(call -> {
+            databaseUpdates.incrementAndGet();
+            int count = call.getArgument(3);
+            synchronized (booked) {
+                if (booked.get() + count > capacity) return 0;
+                booked.addAndGet(count);
+                return 1;
+            }
+        });
+        when(slotRepository.release(anyLong(), anyLong(), any(), anyInt())).thenAnswer(call -> {
+            int count = call.getArgument(3);
+            synchronized (booked) {
+                if (booked.get() < count) return 0;
+                booked.addAndGet(-count);
+                return 1;
+            }
+        });
+        databaseVendor = mock(DatabaseVendor.class);
+
+        service = new SlotInventoryService();
+        ReflectionTestUtils.setField(service, "slotRepository", slotRepository);
+        ReflectionTestUtils.setField(service, "appointmentRepository", mock(AppointmentRepository.class));
+        ReflectionTestUtils.setField(service, "databaseVendor", databaseVendor);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "defaultCapacity", capacity);
+        ReflectionTestUtils.setField(service, "refreshSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "maxCached", 100);
+        service.init();
+    }
+
+    /**
+     * Run the action as one transaction ending with the given status
+     */
+    private boolean inTransaction(Runnable action, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        boolean done = false;
+        try {
+            action.run();
+            done = true;
+        } catch (IllegalArgumentException full) {
+            status = TransactionSynchronization.STATUS_ROLLED_BACK;
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            for (TransactionSynchronization synchronization : synchronizations) {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) synchronization.afterCommit();
+                synchronization.afterCompletion(status);
+            }
+        }
+        return done;
+    }
+
+    private boolean book(int count) {
+        return inTransaction(() -> service.reserve(1L, 2L, DAY, count), TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    @Test
+    void concurrentBookersNeverOversell() throws Exception {
+        int threads = 16;
+        int attemptsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger confirmed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (book(1)) confirmed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        executor.shutdown();
+
+        assertThat(confirmed.get()).isEqualTo(capacity);
+        assertThat(booked.get()).isEqualTo(capacity);
+        // Once memory knows the slot is full, bookers are turned away without a database update
+        assertThat(databaseUpdates.get()).isEqualTo(capacity);
+        System.out.println("Slot contention: " + threads * attemptsPerThread + " attempts by " + threads
+                + " threads in " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void rolledBackBookingGivesItsPlaceBack() {
+        booked.set(capacity - 1);
+
+        assertThat(inTransaction(() -> service.reserve(1L, 2L, DAY, 1), TransactionSynchronization.STATUS_ROLLED_BACK))
+                .isTrue();
+        // The database row rolls back with the transaction
+        booked.decrementAndGet();
+
+        assertThat(book(1)).isTrue();
+        assertThat(book(1)).isFalse();
+    }
+
+    @Test
+    void releasedPlaceCanBeBookedAgain() {
+        booked.set(capacity - 1);
+        assertThat(book(1)).isTrue();
+        assertThat(book(1)).isFalse();
+
+        inTransaction(() -> service.release(1L, 2L, DAY, 1), TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(booked.get()).isEqualTo(capacity - 1);
+        assertThat(book(1)).isTrue();
+    }
+
+    @Test
+    void reserveOutsideATransactionIsRejected() {
+        assertThatThrownBy(() -> service.reserve(1L, 2L, DAY, 1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void slotRowIsCreatedWithTheStatementOfTheDatabaseInUse() {
+        when(databaseVendor.isPostgres()).thenReturn(true);
+        book(1);
+        verify(slotRepository).createIfAbsentPostgres(eq(1L), eq(2L), eq(DAY), eq(capacity), any(), any());
+        verify(slotRepository, never()).createIfAbsentMySql(anyLong(), anyLong(), any(), anyInt(), any(), any());
+    }
+}
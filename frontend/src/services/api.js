@@ -45,9 +45,22 @@ export const bookAppointment = (appointmentData) => api.post('/appointments', ap
 
 export const getAppointmentById = (id) => api.get(`/appointments/${id}`);
 
-export const getAppointmentsByPhone = (phone) => api.get(`/appointments/patient/${phone}`);
+// Appointment lists are paged: follow X-Next-Cursor until the last page, so callers get every appointment
+const getAllAppointmentPages = async (url) => {
+  const appointments = [];
+  let cursor = null;
+  let response;
+  do {
+    response = await api.get(url, { params: cursor ? { after: cursor } : {} });
+    appointments.push(...response.data);
+    cursor = response.headers['x-next-cursor'];
+  } while (cursor);
+  return { ...response, data: appointments };
+};
+
+export const getAppointmentsByPhone = (phone) => getAllAppointmentPages(`/appointments/patient/${phone}`);
 
-export const getAppointmentsByUserId = (userId) => api.get(`/appointments/user/${userId}`);
+export const getAppointmentsByUserId = (userId) => getAllAppointmentPages(`/appointments/user/${userId}`);
 
 // Review API
 export const getReviewsByHospital = (hospitalId) => api.get(`/reviews/hospital/${hospitalId}`);